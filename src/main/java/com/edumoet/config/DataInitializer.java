@@ -11,6 +11,7 @@ import com.edumoet.entity.User;
 import com.edumoet.repository.QuestionRepository;
 import com.edumoet.repository.TagRepository;
 import com.edumoet.repository.UserRepository;
+import com.edumoet.service.common.CounterReconciler;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -34,6 +35,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CounterReconciler counterReconciler;
+
     @Override
     public void run(String... args) throws Exception {
         // Chỉ khởi tạo dữ liệu mẫu nếu database rỗng
@@ -197,8 +201,8 @@ public class DataInitializer implements CommandLineRunner {
         q5.setTags(q5Tags);
         questionRepository.save(q5);
 
-        // Update tag question counts
-        updateTagCounts();
+        // Tính số câu hỏi của từng tag từ question_tags (questions được lưu thẳng qua repository)
+        counterReconciler.reconcileAll();
 
         System.out.println("✅ Sample data initialized successfully!");
         System.out.println("📝 Login credentials:");
@@ -215,13 +219,5 @@ public class DataInitializer implements CommandLineRunner {
         tag.setQuestionCount(0);
         return tagRepository.save(tag);
     }
-
-    private void updateTagCounts() {
-        for (Tag tag : tagRepository.findAll()) {
-            long count = questionRepository.count();
-            tag.setQuestionCount((int) count);
-            tagRepository.save(tag);
-        }
-    }
 }
 
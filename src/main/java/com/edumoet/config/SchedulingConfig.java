@@ -0,0 +1,33 @@
+package com.edumoet.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Scheduler riêng cho các job @Scheduled (purge user, rebuild index, reconcile, retention...).
+ * Không dùng chung messageBrokerTaskScheduler: job chạy lâu không được làm trễ STOMP heartbeat
+ * (client tự ngắt khi trễ heartbeat, PresenceService coi như offline).
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    @Value("${scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(taskScheduler());
+    }
+}
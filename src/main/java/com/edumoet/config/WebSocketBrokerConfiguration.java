@@ -0,0 +1,41 @@
+package com.edumoet.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * STOMP broker infrastructure (replaces @EnableWebSocketMessageBroker; WebSocketConfig and other
+ * WebSocketMessageBrokerConfigurer beans are still applied through the delegating configuration).
+ *
+ * Only change from the default: each session's outbound buffer is capped at
+ * websocket.session-buffer-size-limit and drops the oldest frames when a slow client falls behind,
+ * instead of closing the session. The send time limit (websocket.send-time-limit-ms) still closes
+ * sessions that stay stuck.
+ */
+@Configuration
+public class WebSocketBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    @Value("${websocket.session-buffer-size-limit:262144}")
+    private int sessionBufferSizeLimit;
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        return new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            // The handler wraps every session exactly once here, so this is the decorator frames go through
+            @Override
+            protected WebSocketSession decorateSession(WebSocketSession session) {
+                return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), sessionBufferSizeLimit,
+                        ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+            }
+        };
+    }
+}
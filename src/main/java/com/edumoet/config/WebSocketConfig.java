@@ -1,10 +1,25 @@
 package com.edumoet.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import com.edumoet.service.common.PresenceService;
+
+import java.security.Principal;
 
 /**
  * WebSocket Configuration for real-time messaging
@@ -14,15 +29,48 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * - /app: Destination prefix for sending messages to server
  * - /topic: Broadcast messages to all subscribers
  * - /queue: Private messages to specific users
+ *
+ * Each node keeps its own simple broker for its connected clients; messages for users or
+ * topics held by other nodes are fanned out by ClusterMessenger over a ClusterTransport
+ * (cluster.transport, default "loopback" = single JVM).
+ *
+ * Outbound limits: each session gets its own outbound buffer (websocket.session-buffer-size-limit,
+ * see WebSocketBrokerConfiguration) that drops the oldest frames when a slow client falls behind,
+ * so broker threads never wait on it. The send time limit closes sessions that stay stuck.
+ *
+ * Presence: STOMP heartbeats are enabled (10s both ways) and every inbound frame, heartbeats
+ * included, refreshes the session in PresenceService.
  */
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    // Lazy: PresenceService depends on the messaging template created by this configuration
+    @Autowired
+    @Lazy
+    private PresenceService presenceService;
+
+    // Broker scheduler bean declared by WebSocketBrokerConfiguration (managed and shut down by the context);
+    // used only by the broker, @Scheduled jobs run on SchedulingConfig's taskScheduler
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple in-memory broker
-        config.enableSimpleBroker("/topic", "/queue");
+        // Enable simple in-memory broker (per node; cross-node delivery goes through ClusterMessenger)
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                .setTaskScheduler(messageBrokerTaskScheduler);
         
         // Set prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
@@ -42,4 +90,34 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*");
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Session stuck on one send longer than this is closed (client reconnects and reloads);
+        // the buffer size cap is applied by WebSocketBrokerConfiguration (drops instead of closing)
+        registration.setSendTimeLimit(sendTimeLimitMs);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+                Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+                // CONNECT / DISCONNECT are handled by the session events; other frames may re-register a swept session
+                boolean live = user != null && type != SimpMessageType.CONNECT && type != SimpMessageType.DISCONNECT;
+                presenceService.touch(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                        live ? user.getName() : null);
+                return message;
+            }
+        });
+    }
+}
@@ -7,8 +7,14 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.edumoet.service.common.NotificationBroadcaster;
+import com.edumoet.service.common.NotificationDelivery;
+import com.edumoet.service.common.NotificationRetentionJob;
 import com.edumoet.service.common.NotificationService;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Admin Notification Controller - Gửi thông báo hệ thống
  */
@@ -20,6 +26,15 @@ public class AdminNotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationBroadcaster notificationBroadcaster;
+
+    @Autowired
+    private NotificationRetentionJob notificationRetentionJob;
+
+    @Autowired
+    private NotificationDelivery notificationDelivery;
+
     /**
      * Trang gửi thông báo
      */
@@ -53,13 +68,13 @@ public class AdminNotificationController {
             // Check if target is a role
             if (target.startsWith("role:")) {
                 String role = target.substring(5); // Remove "role:" prefix
-                int count = notificationService.broadcastToRole(role, message, type);
+                NotificationBroadcaster.BroadcastJob job = notificationService.broadcastToRole(role, message, type);
                 redirectAttributes.addFlashAttribute("successMessage", 
-                    "✅ Đã gửi thông báo đến " + count + " người dùng có role " + role + "!");
+                    "✅ Đang gửi thông báo đến " + job.getTotal() + " người dùng có role " + role + " (job #" + job.getId() + ")!");
             } else if ("all".equalsIgnoreCase(target)) {
-                int count = notificationService.broadcastToAll(message, type);
+                NotificationBroadcaster.BroadcastJob job = notificationService.broadcastToAll(message, type);
                 redirectAttributes.addFlashAttribute("successMessage", 
-                    "✅ Đã gửi thông báo đến tất cả người dùng (" + count + " người)!");
+                    "✅ Đang gửi thông báo đến tất cả người dùng (" + job.getTotal() + " người, job #" + job.getId() + ")!");
             } else {
                 // Send to specific user by ID
                 try {
@@ -80,6 +95,56 @@ public class AdminNotificationController {
         return "redirect:/admin/notifications/send";
     }
 
+    /**
+     * API: Tiến độ các lần gửi hàng loạt gần đây
+     */
+    @GetMapping("/api/broadcasts")
+    @ResponseBody
+    public List<NotificationBroadcaster.BroadcastJob> recentBroadcasts() {
+        return notificationBroadcaster.getRecentJobs();
+    }
+
+    /**
+     * API: Tiến độ 1 lần gửi hàng loạt
+     */
+    @GetMapping("/api/broadcasts/{id}")
+    @ResponseBody
+    public NotificationBroadcaster.BroadcastJob broadcastProgress(@PathVariable Long id) {
+        NotificationBroadcaster.BroadcastJob job = notificationBroadcaster.getJob(id);
+        if (job == null) {
+            throw new RuntimeException("Broadcast job not found: " + id);
+        }
+        return job;
+    }
+
+    /**
+     * API: Kết quả lần dọn thông báo cũ gần nhất
+     */
+    @GetMapping("/api/retention")
+    @ResponseBody
+    public Map<String, Object> retentionStatus() {
+        return notificationRetentionJob.getLastRun();
+    }
+
+    /**
+     * API: Dọn thông báo đã đọc quá hạn ngay
+     */
+    @PostMapping("/api/retention/run")
+    @ResponseBody
+    public Map<String, Object> runRetention() {
+        notificationRetentionJob.purge();
+        return notificationRetentionJob.getLastRun();
+    }
+
+    /**
+     * API: Số liệu đẩy thông báo real-time (frame đã gửi, sự kiện đã gộp)
+     */
+    @GetMapping("/api/delivery")
+    @ResponseBody
+    public Map<String, Object> deliveryMetrics() {
+        return notificationDelivery.getMetrics();
+    }
+
     /**
      * Danh sách thông báo
      */
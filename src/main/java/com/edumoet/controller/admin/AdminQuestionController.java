@@ -16,6 +16,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.edumoet.entity.Question;
 import com.edumoet.service.common.ImageService;
 import com.edumoet.service.common.QuestionService;
+import com.edumoet.service.common.QuestionSummary;
 import com.edumoet.service.common.UserService;
 
 import jakarta.validation.Valid;
@@ -58,13 +59,13 @@ public class AdminQuestionController {
                     Sort.by(sortBy).descending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Question> questions;
+        Page<QuestionSummary> questions;
         
         if (search != null && !search.isEmpty()) {
-            questions = questionService.searchQuestions(search, pageable);
+            questions = questionService.searchQuestions(search, pageable, true);
             model.addAttribute("search", search);
         } else {
-            questions = questionService.getAllQuestions(pageable);
+            questions = questionService.getQuestionSummaries(null, pageable);
         }
         
         model.addAttribute("questions", questions);
@@ -140,11 +141,7 @@ public class AdminQuestionController {
             
             // Handle image uploads
             if (files != null && files.length > 0) {
-                for (MultipartFile file : files) {
-                    if (!file.isEmpty()) {
-                        imageService.saveQuestionImage(file, question);
-                    }
-                }
+                imageService.saveQuestionImages(files, question);
             }
             
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -6,8 +6,14 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import com.edumoet.service.common.CounterReconciler;
+import com.edumoet.service.common.PresenceService;
+import com.edumoet.service.common.QuestionFeedCache;
+import com.edumoet.service.common.QuestionViewCounter;
 import com.edumoet.service.common.StatisticsService;
 
+import java.util.Map;
+
 /**
  * Admin Statistics Controller - Thống kê báo cáo
  */
@@ -19,6 +25,18 @@ public class AdminStatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private QuestionViewCounter questionViewCounter;
+
+    @Autowired
+    private QuestionFeedCache questionFeedCache;
+
+    @Autowired
+    private CounterReconciler counterReconciler;
+
+    @Autowired
+    private PresenceService presenceService;
+
     /**
      * Dashboard thống kê
      */
@@ -49,5 +67,49 @@ public class AdminStatisticsController {
         
         return "admin/statistics/dashboard";
     }
-}
 
+    /**
+     * API: Trạng thái bộ đếm lượt xem (backlog chờ ghi, độ trễ)
+     */
+    @GetMapping("/api/view-counter")
+    @ResponseBody
+    public Map<String, Object> viewCounterMetrics() {
+        return questionViewCounter.getMetrics();
+    }
+
+    /**
+     * API: Hit/miss của cache feed trang chủ
+     */
+    @GetMapping("/api/feed-cache")
+    @ResponseBody
+    public Map<String, Object> feedCacheMetrics() {
+        return questionFeedCache.getMetrics();
+    }
+
+    /**
+     * API: Kết quả lần đối soát bộ đếm gần nhất (số tag / câu hỏi bị lệch đã sửa)
+     */
+    @GetMapping("/api/counters")
+    @ResponseBody
+    public CounterReconciler.Report counterReport() {
+        return counterReconciler.getLastReport();
+    }
+
+    /**
+     * API: Chạy đối soát bộ đếm ngay
+     */
+    @PostMapping("/api/counters/reconcile")
+    @ResponseBody
+    public CounterReconciler.Report reconcileCounters() {
+        return counterReconciler.reconcileAll();
+    }
+
+    /**
+     * API: Số user / session WebSocket đang online trên node này
+     */
+    @GetMapping("/api/presence")
+    @ResponseBody
+    public Map<String, Object> presence() {
+        return presenceService.getSummary();
+    }
+}
@@ -14,6 +14,8 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.edumoet.entity.Tag;
 import com.edumoet.service.common.TagService;
 
+import java.util.List;
+
 /**
  * Admin Tag Controller - Quản lý thẻ
  */
@@ -52,7 +54,7 @@ public class AdminTagController {
         }
         
         // Statistics
-        long totalTags = tagService.getAllTagsNoPaging().size();
+        long totalTags = tagService.count();
         long tagsWithQuestions = tags.stream().filter(t -> t.getQuestionCount() > 0).count();
         long unusedTags = tags.stream().filter(t -> t.getQuestionCount() == 0).count();
         
@@ -112,15 +114,13 @@ public class AdminTagController {
             RedirectAttributes redirectAttributes) {
         
         try {
-            Tag tag = tagService.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Không tìm thấy thẻ"));
-            
-            tag.setName(name);
-            tag.setDescription(description);
-            tagService.save(tag);
+            // Đổi sang tên của thẻ khác đã có → gộp vào thẻ đó
+            Tag saved = tagService.renameTag(id, name, description);
             
-            redirectAttributes.addFlashAttribute("successMessage", 
-                "Cập nhật thẻ thành công!");
+            redirectAttributes.addFlashAttribute("successMessage", saved.getId().equals(id)
+                ? "Cập nhật thẻ thành công!"
+                : "Tên '" + saved.getName() + "' đã tồn tại, đã gộp thẻ vào thẻ đó!");
+            return "redirect:/admin/tags/" + saved.getId();
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
                 "Lỗi: " + e.getMessage());
@@ -147,18 +147,18 @@ public class AdminTagController {
     }
 
     /**
-     * Merge 2 tags (gộp tag nguồn vào tag đích)
+     * Merge tags (gộp 1 hoặc nhiều tag nguồn vào tag đích)
      */
     @PostMapping("/merge")
     public String mergeTags(
-            @RequestParam Long sourceTagId,
+            @RequestParam List<Long> sourceTagIds,
             @RequestParam Long targetTagId,
             RedirectAttributes redirectAttributes) {
         
         try {
-            tagService.mergeTags(sourceTagId, targetTagId);
+            int moved = tagService.mergeTags(sourceTagIds, targetTagId);
             redirectAttributes.addFlashAttribute("successMessage", 
-                "Gộp thẻ thành công!");
+                "Gộp thẻ thành công! Đã chuyển " + moved + " liên kết câu hỏi.");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
                 "Lỗi: " + e.getMessage());
@@ -12,9 +12,13 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.edumoet.entity.User;
+import com.edumoet.entity.UserPurgeJob;
 import com.edumoet.service.common.AdminService;
+import com.edumoet.service.common.UserPurgeService;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Admin User Controller - Quản lý người dùng
@@ -27,6 +31,9 @@ public class AdminUserController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private UserPurgeService userPurgeService;
+
     /**
      * Danh sách người dùng
      */
@@ -336,9 +343,9 @@ public class AdminUserController {
     @PostMapping("/{id}/delete")
     public String deleteUser(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
-            adminService.deleteUser(id);
+            UserPurgeJob job = adminService.deleteUser(id);
             redirectAttributes.addFlashAttribute("successMessage", 
-                "Đã xóa người dùng!");
+                "Đã khóa tài khoản, dữ liệu đang được xóa ở chế độ nền (job #" + job.getId() + ")");
             return "redirect:/admin/users";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
@@ -346,4 +353,27 @@ public class AdminUserController {
             return "redirect:/admin/users/" + id;
         }
     }
+
+    /**
+     * Tiến độ job xóa người dùng (JSON)
+     */
+    @GetMapping("/purge-jobs/{jobId}")
+    @ResponseBody
+    public Map<String, Object> purgeJobStatus(@PathVariable Long jobId) {
+        UserPurgeJob job = userPurgeService.findJob(jobId)
+                .orElseThrow(() -> new RuntimeException("Purge job not found"));
+        
+        Map<String, Object> status = new HashMap<>();
+        status.put("id", job.getId());
+        status.put("userId", job.getUserId());
+        status.put("username", job.getUsername());
+        status.put("status", job.getStatus());
+        status.put("phase", job.getPhase());
+        status.put("deletedRows", job.getDeletedRows());
+        status.put("lastError", job.getLastError());
+        status.put("createdAt", job.getCreatedAt());
+        status.put("updatedAt", job.getUpdatedAt());
+        status.put("finishedAt", job.getFinishedAt());
+        return status;
+    }
 }
@@ -11,8 +11,10 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import com.edumoet.entity.Question;
+import com.edumoet.service.common.CursorPage;
+import com.edumoet.service.common.FeedCursor;
 import com.edumoet.service.common.QuestionService;
+import com.edumoet.service.common.QuestionSummary;
 
 @Controller
 public class HomeController {
@@ -22,15 +24,12 @@ public class HomeController {
 
     @GetMapping({"/", "/home"})
     public String home(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "15") int size,
             @RequestParam(defaultValue = "newest") String sort,
             Authentication authentication,
             Model model) {
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Question> questions;
-        
         // Check if user is Admin or Manager
         boolean isAdminOrManager = false;
         if (authentication != null) {
@@ -39,21 +38,14 @@ public class HomeController {
                                    a.getAuthority().equals("ROLE_MANAGER"));
         }
         
-        if ("votes".equals(sort)) {
-            // Admin/Manager see all, users see only unlocked
-            questions = isAdminOrManager ? 
-                questionService.getQuestionsByVotes(pageable) : 
-                questionService.getPublicQuestionsByVotes(pageable);
-        } else {
-            // Admin/Manager see all, users see only unlocked
-            questions = isAdminOrManager ? 
-                questionService.getAllQuestions(pageable) : 
-                questionService.getPublicQuestions(pageable);
-        }
+        // Keyset pagination: cost is the same on page 1 and page 5,000
+        // Admin/Manager see all, users see only approved & unlocked
+        CursorPage<QuestionSummary> questions = questionService.getFeed(
+                FeedCursor.Sort.fromParam(sort), cursor, size, isAdminOrManager);
         
         model.addAttribute("questions", questions);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", questions.getTotalPages());
+        model.addAttribute("nextCursor", questions.getNextCursor());
+        model.addAttribute("isFirstPage", cursor == null || cursor.isEmpty());
         model.addAttribute("sort", sort);
         model.addAttribute("pageTitle", "Top Questions - EDUMOET");
         
@@ -65,10 +57,16 @@ public class HomeController {
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "15") int size,
+            Authentication authentication,
             Model model) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Question> questions = questionService.searchQuestions(q, pageable);
+        
+        // Admin/Manager also see locked questions in results
+        boolean isAdminOrManager = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") || 
+                               a.getAuthority().equals("ROLE_MANAGER"));
+        Page<QuestionSummary> questions = questionService.searchQuestions(q, pageable, isAdminOrManager);
         
         model.addAttribute("questions", questions);
         model.addAttribute("currentPage", page);
@@ -0,0 +1,32 @@
+package com.edumoet.controller.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ModelAttribute;
+
+import com.edumoet.service.common.UnreadCounterService;
+
+import java.security.Principal;
+
+/**
+ * Unread Count Advice - Đưa số thông báo / tin nhắn chưa đọc vào model cho badge trên navbar
+ * (tra bộ đếm trong bộ nhớ; sau đó client nhận số mới qua /user/queue/unread)
+ */
+@ControllerAdvice(annotations = Controller.class)
+public class UnreadCountAdvice {
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @ModelAttribute
+    public void addUnreadCounts(Principal principal, Model model) {
+        if (principal == null) {
+            return;
+        }
+        UnreadCounterService.Counts counts = unreadCounterService.get(principal.getName());
+        model.addAttribute("unreadNotifications", counts.getNotifications());
+        model.addAttribute("unreadMessages", counts.getMessages());
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.edumoet.entity.Notification;
 import com.edumoet.entity.User;
 import com.edumoet.service.common.ActivityLogService;
+import com.edumoet.service.common.NotificationBroadcaster;
 import com.edumoet.service.common.NotificationService;
 import com.edumoet.service.common.UserService;
 
@@ -83,17 +84,17 @@ public class NotificationController {
             // Check if target is a role
             if (target.startsWith("role:")) {
                 String role = target.substring(5); // Remove "role:" prefix
-                int count = notiService.notifyByRole(role, type, message, link, senderId);
+                NotificationBroadcaster.BroadcastJob job = notiService.notifyByRole(role, type, message, link, senderId);
                 logService.logAction(senderId, "SEND_ROLE_NOTIFICATION", "NOTIFICATION", null,
                         "Manager sent notification to role " + role);
                 redirectAttributes.addFlashAttribute("successMessage", 
-                    "✅ Đã gửi thông báo đến " + count + " người dùng có role " + role + "!");
+                    "✅ Đang gửi thông báo đến " + job.getTotal() + " người dùng có role " + role + " (job #" + job.getId() + ")!");
             } else if ("all".equalsIgnoreCase(target)) {
-                notiService.notifyAllUsers(type, message, link, senderId);
+                NotificationBroadcaster.BroadcastJob job = notiService.notifyAllUsers(type, message, link, senderId);
                 logService.logAction(senderId, "SEND_GLOBAL_NOTIFICATION", "NOTIFICATION", null,
                         "Manager sent global notification");
                 redirectAttributes.addFlashAttribute("successMessage", 
-                    "✅ Đã gửi thông báo đến tất cả người dùng!");
+                    "✅ Đang gửi thông báo đến tất cả người dùng (" + job.getTotal() + " người, job #" + job.getId() + ")!");
             } else {
                 try {
                     Long userId = Long.parseLong(target);
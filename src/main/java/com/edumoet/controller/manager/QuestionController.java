@@ -18,6 +18,7 @@ import com.edumoet.entity.User;
 import com.edumoet.service.common.ActivityLogService;
 import com.edumoet.service.common.ImageService;
 import com.edumoet.service.common.QuestionService;
+import com.edumoet.service.common.QuestionSummary;
 
 import java.security.Principal;
 import java.util.Arrays;
@@ -59,24 +60,24 @@ public class QuestionController {
                     Sort.by(sortBy).descending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Question> questions;
+        Page<QuestionSummary> questions;
         
         // Apply filters
         if (search != null && !search.trim().isEmpty()) {
-            questions = questionService.searchQuestions(search, pageable);
+            questions = questionService.searchQuestions(search, pageable, true);
             model.addAttribute("search", search);
         } else if ("pending".equals(status)) {
-            questions = questionService.getAllPendingQuestions(pageable);
+            questions = questionService.getQuestionSummaries(false, pageable);
         } else if ("approved".equals(status)) {
-            questions = questionService.getAllApprovedQuestions(pageable);
+            questions = questionService.getQuestionSummaries(true, pageable);
         } else {
-            questions = questionService.getAllQuestions(pageable);
+            questions = questionService.getQuestionSummaries(null, pageable);
         }
         
-        // Statistics for dashboard cards
-        long totalQuestions = questionService.countPending() + questionService.findAllApproved().size();
+        // Statistics for dashboard cards (COUNT queries, no entity loading)
         long pendingCount = questionService.countPending();
-        long approvedCount = questionService.findAllApproved().size();
+        long approvedCount = questionService.countApproved();
+        long totalQuestions = pendingCount + approvedCount;
         
         model.addAttribute("questions", questions);
         model.addAttribute("currentPage", page);
@@ -275,11 +276,7 @@ public class QuestionController {
             
             // Handle image uploads
             if (images != null && !images.isEmpty()) {
-                for (MultipartFile file : images) {
-                    if (!file.isEmpty()) {
-                        imageService.uploadForQuestion(file, id, question.getAuthor().getId());
-                    }
-                }
+                imageService.saveQuestionImages(images.toArray(new MultipartFile[0]), question);
             }
             
             logService.logAction(1L, "UPDATE_QUESTION", "QUESTION", id, "Updated question " + id);
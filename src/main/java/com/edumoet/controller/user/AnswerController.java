@@ -10,7 +10,6 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.edumoet.entity.Answer;
-import com.edumoet.entity.ImageAttachment;
 import com.edumoet.entity.Question;
 import com.edumoet.entity.User;
 import com.edumoet.service.common.AnswerService;
@@ -59,21 +58,13 @@ public class AnswerController {
             // Save answer first to get ID
             Answer savedAnswer = answerService.createAnswer(answer);
             
-            // Handle image uploads if any
+            // Handle image uploads if any (parallel, all-or-nothing; the answer itself stays posted)
             if (images != null && images.length > 0) {
-                for (MultipartFile imageFile : images) {
-                    if (!imageFile.isEmpty()) {
-                        try {
-                            ImageAttachment image = imageService.saveAnswerImage(imageFile, savedAnswer);
-                            savedAnswer.getImages().add(image);
-                            System.out.println("✅ Saved image for answer ID: " + savedAnswer.getId() + " - Image ID: " + image.getId());
-                        } catch (Exception imgEx) {
-                            System.err.println("❌ Error saving image: " + imgEx.getMessage());
-                        }
-                    }
+                try {
+                    imageService.saveAnswerImages(images, savedAnswer);
+                } catch (Exception imgEx) {
+                    System.err.println("❌ Error saving images: " + imgEx.getMessage());
                 }
-                // Update answer with images
-                answerService.updateAnswer(savedAnswer);
             }
             
             redirectAttributes.addFlashAttribute("successMessage", "Answer posted successfully!");
@@ -5,7 +5,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,6 +12,7 @@ import com.edumoet.entity.ChatbotConversation;
 import com.edumoet.entity.ChatbotMessage;
 import com.edumoet.entity.User;
 import com.edumoet.service.common.ChatbotService;
+import com.edumoet.service.common.ClusterMessenger;
 import com.edumoet.service.common.UserService;
 
 import jakarta.servlet.http.HttpSession;
@@ -36,7 +36,7 @@ public class ChatbotController {
     private UserService userService;
     
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private ClusterMessenger clusterMessenger;
     
     /**
      * DTO cho tin nhắn chatbot
@@ -101,7 +101,7 @@ public class ChatbotController {
         
         // Gửi response về client qua WebSocket
         ChatbotMessageDTO responseDTO = new ChatbotMessageDTO(botResponse);
-        messagingTemplate.convertAndSend("/topic/chatbot/" + sessionId, responseDTO);
+        clusterMessenger.sendToTopic("/topic/chatbot/" + sessionId, responseDTO);
     }
     
     /**
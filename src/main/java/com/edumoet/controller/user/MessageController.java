@@ -7,7 +7,6 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.*;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -17,8 +16,11 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.edumoet.entity.Attachment;
 import com.edumoet.entity.Message;
 import com.edumoet.entity.User;
+import com.edumoet.service.common.ClusterMessenger;
+import com.edumoet.service.common.CursorPage;
 import com.edumoet.service.common.FileStorageService;
 import com.edumoet.service.common.MessageService;
+import com.edumoet.service.common.PresenceService;
 import com.edumoet.service.common.UserService;
 import com.edumoet.service.common.WebSocketService;
 
@@ -47,7 +49,10 @@ public class MessageController {
     private FileStorageService fileStorageService;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private ClusterMessenger clusterMessenger;
+
+    @Autowired
+    private PresenceService presenceService;
 
     // ------------------------------------------------------------
     // 🧩 DTOs
@@ -111,33 +116,32 @@ public class MessageController {
     // 📥 Inbox — danh sách hội thoại
     // ------------------------------------------------------------
     @GetMapping("/inbox")
-    public String inbox(Principal principal, Model model) {
+    public String inbox(Principal principal,
+                        @RequestParam(required = false) Long before,
+                        @RequestParam(defaultValue = "30") int size,
+                        Model model) {
         if (principal == null) throw new RuntimeException("Not authenticated");
         User current = userService.findByUsername(principal.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         List<Map<String, Object>> conversations = new ArrayList<>();
-        var summaries = messageService.getConversationSummaries(current);
+        CursorPage<MessageService.ConversationSummary> summaries = messageService.getConversations(current, before, size);
 
         for (MessageService.ConversationSummary s : summaries) {
             Map<String, Object> item = new HashMap<>();
-            item.put("username", s.getPartner().getUsername());
-            item.put("displayName", s.getPartner().getUsername());
-            item.put("avatar", resolveAvatarUrl(s.getPartner().getProfileImage(), s.getPartner().getUsername(), 48));
-
-            if (s.getLastMessage() != null) {
-                item.put("lastMessage", s.getLastMessage().getBody());
-                item.put("lastTimestamp", s.getLastTimestamp());
-            } else {
-                item.put("lastMessage", "");
-                item.put("lastTimestamp", null);
-            }
-
+            item.put("username", s.getPartnerUsername());
+            item.put("displayName", s.getPartnerUsername());
+            item.put("avatar", resolveAvatarUrl(s.getPartnerProfileImage(), s.getPartnerUsername(), 48));
+            item.put("lastMessage", s.getLastMessage() != null ? s.getLastMessage() : "");
+            item.put("lastTimestamp", s.getLastTimestamp());
             item.put("unread", s.getUnreadCount());
             conversations.add(item);
         }
 
         model.addAttribute("conversations", conversations);
+        model.addAttribute("nextCursor", summaries.getNextCursor());
+        model.addAttribute("isFirstPage", before == null);
+        model.addAttribute("size", size);
         model.addAttribute("currentUser", current);
         model.addAttribute("pageTitle", "Tin nhắn");
         return "messages/inbox";
@@ -356,7 +360,9 @@ public class MessageController {
     @GetMapping("/api/conversation/{username}")
     @ResponseBody
     public ResponseEntity<?> getConversation(@PathVariable String username,
-                                             @RequestParam(defaultValue = "0") int page,
+                                             @RequestParam(required = false) Long before,
+                                             @RequestParam(required = false) Long after,
+                                             @RequestParam(defaultValue = "50") int size,
                                              Principal principal) {
         try {
             if (principal == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -366,9 +372,9 @@ public class MessageController {
             User partner = userService.findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("Partner not found"));
 
-            List<Message> messages = messageService.getConversationMessages(currentUser, partner);
+            CursorPage<Message> messages = messageService.getConversationHistory(currentUser, partner, before, after, size);
 
-            List<Map<String, Object>> result = messages.stream().map(msg -> {
+            List<Map<String, Object>> content = messages.getContent().stream().map(msg -> {
                 Map<String, Object> dto = new HashMap<>();
                 dto.put("id", msg.getId());
                 dto.put("from", msg.getSender().getUsername());
@@ -380,6 +386,8 @@ public class MessageController {
                 return dto;
             }).toList();
 
+            // content: cũ → mới; nextCursor: before (cuộn lên) hoặc after (đồng bộ tiếp) cho lần gọi sau
+            CursorPage<Map<String, Object>> result = new CursorPage<>(content, messages.getNextCursor());
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -405,8 +413,11 @@ public class MessageController {
             chatMessage.setFrom(sender.getUsername());
             chatMessage.setTimestamp(message.getCreatedAt());
 
-            messagingTemplate.convertAndSendToUser(receiver.getUsername(), "/queue/messages", chatMessage);
-            messagingTemplate.convertAndSendToUser(sender.getUsername(), "/queue/messages", chatMessage);
+            // Người nhận offline: tin đã lưu, họ sẽ thấy khi mở hộp thư
+            if (presenceService.isOnline(receiver.getUsername())) {
+                clusterMessenger.sendToUser(receiver.getUsername(), "/queue/messages", chatMessage);
+            }
+            clusterMessenger.sendToUser(sender.getUsername(), "/queue/messages", chatMessage);
 
         } catch (Exception e) {
             System.err.println("Error sending chat message: " + e.getMessage());
@@ -10,12 +10,13 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.edumoet.entity.Notification;
 import com.edumoet.entity.User;
+import com.edumoet.service.common.CursorPage;
 import com.edumoet.service.common.NotificationService;
+import com.edumoet.service.common.UnreadCounterService;
 import com.edumoet.service.common.UserService;
 
 import java.security.Principal;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,11 +32,17 @@ public class NotificationController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
     /**
-     * Danh sách thông báo của user hiện tại
+     * Danh sách thông báo của user hiện tại (phân trang theo con trỏ before = id)
      */
     @GetMapping
-    public String listNotifications(Principal principal, Model model) {
+    public String listNotifications(
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size,
+            Principal principal, Model model) {
         if (principal == null) {
             return "redirect:/login";
         }
@@ -43,11 +50,13 @@ public class NotificationController {
         User currentUser = userService.findByUsername(principal.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Notification> allNotifications = notificationService.getNotificationsByUser(currentUser);
-        List<Notification> unreadNotifications = notificationService.getUnreadNotifications(currentUser);
+        CursorPage<Notification> notifications = notificationService.getInbox(currentUser, before, size);
 
-        model.addAttribute("notifications", allNotifications);
-        model.addAttribute("unreadCount", unreadNotifications.size());
+        model.addAttribute("notifications", notifications);
+        model.addAttribute("nextCursor", notifications.getNextCursor());
+        model.addAttribute("isFirstPage", before == null);
+        model.addAttribute("size", size);
+        model.addAttribute("unreadCount", unreadCounterService.getNotifications(currentUser.getUsername()));
         model.addAttribute("currentUser", currentUser);
         model.addAttribute("pageTitle", "Notifications");
 
@@ -55,7 +64,7 @@ public class NotificationController {
     }
 
     /**
-     * API: Lấy số lượng thông báo chưa đọc (cho navbar badge)
+     * API: Lấy số lượng thông báo / tin nhắn chưa đọc (cho navbar badge, đọc từ bộ đếm trong bộ nhớ)
      */
     @GetMapping("/api/unread-count")
     @ResponseBody
@@ -64,13 +73,11 @@ public class NotificationController {
             return ResponseEntity.ok(Map.of("count", 0));
         }
 
-        User currentUser = userService.findByUsername(principal.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        List<Notification> unread = notificationService.getUnreadNotifications(currentUser);
+        UnreadCounterService.Counts counts = unreadCounterService.get(principal.getName());
         
         Map<String, Object> response = new HashMap<>();
-        response.put("count", unread.size());
+        response.put("count", counts.getNotifications());
+        response.put("messages", counts.getMessages());
         
         return ResponseEntity.ok(response);
     }
@@ -98,10 +105,11 @@ public class NotificationController {
     }
 
     /**
-     * Đánh dấu tất cả thông báo đã đọc
+     * Đánh dấu tất cả thông báo đã đọc, đến id lớn nhất đang hiển thị trên trang (upTo)
      */
     @PostMapping("/mark-all-read")
     public String markAllAsRead(
+            @RequestParam Long upTo,
             Principal principal,
             RedirectAttributes redirectAttributes) {
         
@@ -113,7 +121,7 @@ public class NotificationController {
             User currentUser = userService.findByUsername(principal.getName())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
-            notificationService.markAllAsRead(currentUser);
+            notificationService.markAllAsRead(currentUser, upTo);
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "✅ All notifications marked as read!");
@@ -152,12 +160,13 @@ public class NotificationController {
     }
 
     /**
-     * API: Lấy danh sách thông báo (cho dropdown hoặc AJAX)
+     * API: Lấy danh sách thông báo (cho dropdown hoặc AJAX), trang sau bằng before = nextCursor
      */
     @GetMapping("/api/recent")
     @ResponseBody
-    public ResponseEntity<List<Notification>> getRecentNotifications(
+    public ResponseEntity<CursorPage<Notification>> getRecentNotifications(
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Long before,
             Principal principal) {
         
         if (principal == null) {
@@ -167,14 +176,7 @@ public class NotificationController {
         User currentUser = userService.findByUsername(principal.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<Notification> notifications = notificationService.getNotificationsByUser(currentUser);
-        
-        // Limit results
-        if (notifications.size() > limit) {
-            notifications = notifications.subList(0, limit);
-        }
-
-        return ResponseEntity.ok(notifications);
+        return ResponseEntity.ok(notificationService.getInbox(currentUser, before, limit));
     }
 }
 
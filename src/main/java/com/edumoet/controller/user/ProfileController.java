@@ -18,7 +18,9 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.edumoet.entity.Question;
 import com.edumoet.entity.User;
 import com.edumoet.service.common.AnswerService;
+import com.edumoet.service.common.CursorPage;
 import com.edumoet.service.common.QuestionService;
+import com.edumoet.service.common.QuestionSummary;
 import com.edumoet.service.common.UserService;
 
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -292,7 +294,7 @@ public class ProfileController {
      */
     @GetMapping("/my-questions")
     public String myQuestions(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "15") int size,
             @RequestParam(defaultValue = "all") String filter,
             Principal principal,
@@ -305,24 +307,23 @@ public class ProfileController {
         User currentUser = userService.findByUsername(principal.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Question> questions;
-
+        Boolean approved;
         switch (filter) {
             case "pending":
-                questions = questionService.getPendingQuestionsByAuthor(currentUser, pageable);
+                approved = false;
                 break;
             case "approved":
-                questions = questionService.getApprovedQuestionsByAuthor(currentUser, pageable);
+                approved = true;
                 break;
             default:
-                questions = questionService.getQuestionsByAuthor(currentUser, pageable);
+                approved = null;
                 break;
         }
+        CursorPage<QuestionSummary> questions = questionService.getQuestionsByAuthor(currentUser, approved, cursor, size);
 
         model.addAttribute("questions", questions);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", questions.getTotalPages());
+        model.addAttribute("nextCursor", questions.getNextCursor());
+        model.addAttribute("isFirstPage", cursor == null || cursor.isEmpty());
         model.addAttribute("filter", filter);
         model.addAttribute("pageTitle", "My Questions - EDUMOET");
 
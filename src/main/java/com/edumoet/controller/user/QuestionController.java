@@ -14,9 +14,8 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.security.core.Authentication;
 import jakarta.validation.Valid;
-import java.util.Set;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Set;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
@@ -40,7 +39,7 @@ public class QuestionController {
     private ImageService imageService;
 
     @Autowired
-    private TagService tagService;
+    private QuestionDetailService questionDetailService;
 
     // ============ SPECIFIC ROUTES (Must be BEFORE generic /{id} route) ============
     
@@ -71,26 +70,19 @@ public class QuestionController {
             question.setAuthor(author);
             
             // Process tags from the tag string
+            Set<String> tagNames = new HashSet<>();
             if (question.getTagString() != null && !question.getTagString().isEmpty()) {
-                Set<String> tagNames = Arrays.stream(question.getTagString().split("\\s*,\\s*"))
+                tagNames = Arrays.stream(question.getTagString().split("\\s*,\\s*"))
                     .filter(tag -> !tag.isEmpty())
                     .collect(Collectors.toSet());
-                Set<Tag> tags = tagService.getOrCreateTags(tagNames);
-                question.setTags(tags);
             }
             
-            // Save question first to get ID
-            Question savedQuestion = questionService.save(question);
+            // Save question first to get ID (tags resolved in batch, tag counts incremented atomically)
+            Question savedQuestion = questionService.createQuestion(question, tagNames);
             
-            // Handle image uploads if any
+            // Handle image uploads if any (uploaded in parallel, rows saved in one batch)
             if (files != null && files.length > 0) {
-                for (MultipartFile file : files) {
-                    if (!file.isEmpty()) {
-                        ImageAttachment image = imageService.saveQuestionImage(file, savedQuestion);
-                        savedQuestion.getImages().add(image);
-                    }
-                }
-                questionService.save(savedQuestion); // Save again with images
+                imageService.saveQuestionImages(files, savedQuestion);
             }
             
             return "redirect:/questions/" + savedQuestion.getId();
@@ -105,7 +97,7 @@ public class QuestionController {
 
     @GetMapping("/{id}")
     public String viewQuestion(@PathVariable Long id, Model model, Authentication authentication) {
-        Question question = questionService.findById(id)
+        Question question = questionDetailService.findQuestion(id)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         
         // Check if question is approved or user has permission to view
@@ -152,50 +144,18 @@ public class QuestionController {
             }
         }
         
-        // Increment views
+        // Increment views (buffered, no write on this request)
         questionService.incrementViews(question);
         
-        List<Answer> answers = answerService.getAnswersByQuestion(question);
-        
-        // Debug: Log images for each answer
-        System.out.println("=== Question ID: " + id + " ===");
-        System.out.println("Total Answers: " + answers.size());
-        for (Answer answer : answers) {
-            System.out.println("Answer ID: " + answer.getId() + " - Images count: " + 
-                (answer.getImages() != null ? answer.getImages().size() : "NULL"));
-            if (answer.getImages() != null && !answer.getImages().isEmpty()) {
-                answer.getImages().forEach(img -> 
-                    System.out.println("  - Image ID: " + img.getId() + ", Path: " + img.getPath())
-                );
-            }
-        }
-        
-        // Check if current user has upvoted question/answers
-        boolean hasUpvotedQuestion = false;
-        Set<Long> upvotedAnswerIds = new HashSet<>();
-        
-        if (authentication != null) {
-            String username = authentication.getName();
-            User currentUser = userService.findByUsername(username).orElse(null);
-            
-            if (currentUser != null) {
-                // Check if user upvoted the question
-                hasUpvotedQuestion = currentUser.getVotedQuestions() != null && 
-                                     currentUser.getVotedQuestions().contains(question);
-                
-                // Check which answers user upvoted
-                if (currentUser.getVotedAnswers() != null) {
-                    upvotedAnswerIds = currentUser.getVotedAnswers().stream()
-                        .map(Answer::getId)
-                        .collect(Collectors.toSet());
-                }
-            }
-        }
+        // Answers, images and vote state for this page only
+        QuestionDetailService.QuestionDetail detail = questionDetailService.load(
+                question, authentication != null ? authentication.getName() : null);
         
         model.addAttribute("question", question);
-        model.addAttribute("answers", answers);
-        model.addAttribute("hasUpvotedQuestion", hasUpvotedQuestion);
-        model.addAttribute("upvotedAnswerIds", upvotedAnswerIds);
+        model.addAttribute("answers", detail.getAnswers());
+        model.addAttribute("hasUpvotedQuestion", detail.isUpvotedQuestion());
+        model.addAttribute("upvotedAnswerIds", detail.getUpvotedAnswerIds());
+        model.addAttribute("relatedQuestions", detail.getRelatedQuestions());
         model.addAttribute("pageTitle", question.getTitle() + " - EDUMOET");
         
         return "question/view";
@@ -252,26 +212,19 @@ public class QuestionController {
             question.setBody(updatedQuestion.getBody());
             
             // Update tags
+            Set<String> tagNames = null;
             if (tagString != null && !tagString.isEmpty()) {
-                Set<String> tagNames = Arrays.stream(tagString.split("\\s*,\\s*"))
+                tagNames = Arrays.stream(tagString.split("\\s*,\\s*"))
                     .filter(tag -> !tag.isEmpty())
                     .collect(Collectors.toSet());
-                Set<Tag> tags = tagService.getOrCreateTags(tagNames);
-                question.setTags(tags);
             }
             
-            // Save question first
-            Question savedQuestion = questionService.updateQuestion(question, null);
+            // Save question first (tag counts follow the added / removed tags)
+            Question savedQuestion = questionService.updateQuestion(question, tagNames);
             
             // Handle new image uploads if any
             if (files != null && files.length > 0) {
-                for (MultipartFile file : files) {
-                    if (!file.isEmpty()) {
-                        ImageAttachment image = imageService.saveQuestionImage(file, savedQuestion);
-                        savedQuestion.getImages().add(image);
-                    }
-                }
-                questionService.save(savedQuestion); // Save again with new images
+                imageService.saveQuestionImages(files, savedQuestion);
             }
             
             redirectAttributes.addFlashAttribute("successMessage", 
@@ -11,10 +11,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
-import com.edumoet.entity.Question;
 import com.edumoet.entity.Tag;
+import com.edumoet.service.common.CursorPage;
 import com.edumoet.service.common.QuestionService;
+import com.edumoet.service.common.QuestionSummary;
+import com.edumoet.service.common.TagPopularityRanking;
 import com.edumoet.service.common.TagService;
+import com.edumoet.service.common.TagSuggestionIndex;
 
 @Controller
 public class TagController {
@@ -25,6 +28,9 @@ public class TagController {
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private TagSuggestionIndex tagSuggestionIndex;
+
     @GetMapping("/tags")
     public String listTags(
             @RequestParam(defaultValue = "0") int page,
@@ -34,7 +40,7 @@ public class TagController {
             Model model) {
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<Tag> tags;
+        Page<?> tags;
         
         if (search != null && !search.isEmpty()) {
             tags = tagService.searchTags(search, pageable);
@@ -57,32 +63,43 @@ public class TagController {
     @GetMapping("/tags/{tagName}")
     public String viewTag(
             @PathVariable String tagName,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "15") int size,
             Model model) {
         
         Tag tag = tagService.findByName(tagName)
                 .orElseThrow(() -> new RuntimeException("Tag not found"));
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Question> questions = questionService.getQuestionsByTag(tag, pageable);
+        CursorPage<QuestionSummary> questions = questionService.getQuestionsByTag(tag, cursor, size);
         
         model.addAttribute("tag", tag);
         model.addAttribute("questions", questions);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("totalPages", questions.getTotalPages());
+        model.addAttribute("nextCursor", questions.getNextCursor());
+        model.addAttribute("isFirstPage", cursor == null || cursor.isEmpty());
         model.addAttribute("pageTitle", "'" + tag.getName() + "' Questions - EDUMOET");
         
         return "tags/view";
     }
     
     /**
-     * API endpoint để lấy tất cả tags (dùng cho autocomplete)
+     * API endpoint: tags phổ biến nhất (đọc từ bảng xếp hạng trong bộ nhớ)
+     */
+    @GetMapping("/api/tags/popular")
+    @ResponseBody
+    public java.util.List<TagPopularityRanking.RankedTag> getPopularTags(
+            @RequestParam(defaultValue = "20") int limit) {
+        return tagService.getPopularTags(Math.min(Math.max(limit, 1), 100));
+    }
+
+    /**
+     * API endpoint gợi ý tag theo tiền tố (autocomplete), tra trong prefix trie ở bộ nhớ
      */
-    @GetMapping("/api/tags/all")
+    @GetMapping("/api/tags/suggest")
     @ResponseBody
-    public java.util.List<Tag> getAllTagsForAutocomplete() {
-        return tagService.getAllTagsNoPaging();
+    public java.util.List<TagSuggestionIndex.Suggestion> suggestTags(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return tagSuggestionIndex.suggest(prefix, limit);
     }
 }
 
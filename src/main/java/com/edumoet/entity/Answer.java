@@ -10,6 +10,8 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.edumoet.service.common.DailyStatsListener;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +22,7 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, DailyStatsListener.class})
 public class Answer {
 
     @Id
@@ -31,7 +33,8 @@ public class Answer {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String body;
 
-    @Column(nullable = false)
+    // Changed only through VoteService's atomic "votes = votes ± 1" UPDATE
+    @Column(nullable = false, updatable = false)
     private Integer votes = 0;
 
     @Column(nullable = false)
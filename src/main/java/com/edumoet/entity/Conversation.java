@@ -0,0 +1,49 @@
+package com.edumoet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hội thoại giữa 2 user (read model cho hộp thư): 1 dòng cho mỗi cặp, userLowId < userHighId.
+ * Giữ id / thời điểm tin nhắn cuối và số tin chưa đọc của từng bên.
+ * Được cập nhật bởi MessageService bằng SQL trong cùng transaction với tin nhắn, không ghi trực tiếp qua JPA.
+ */
+@Entity
+@Table(name = "conversations", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_conversations_pair", columnNames = {"user_low_id", "user_high_id"})
+}, indexes = {
+    // Hộp thư: các hội thoại của 1 user, mới nhất trước (mỗi phía 1 index)
+    @Index(name = "idx_conversations_low_last", columnList = "user_low_id, last_message_id"),
+    @Index(name = "idx_conversations_high_last", columnList = "user_high_id, last_message_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_low_id", nullable = false)
+    private Long userLowId;
+
+    @Column(name = "user_high_id", nullable = false)
+    private Long userHighId;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_at", nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    @Column(name = "unread_low", nullable = false)
+    private Integer unreadLow = 0;
+
+    @Column(name = "unread_high", nullable = false)
+    private Integer unreadHigh = 0;
+}
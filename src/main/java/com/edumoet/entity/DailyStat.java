@@ -0,0 +1,35 @@
+package com.edumoet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Bộ đếm theo ngày cho trang thống kê: số bản ghi (metric) có created_at rơi vào stat_date.
+ * Được cập nhật bởi DailyStatsService, không ghi trực tiếp qua JPA.
+ */
+@Entity
+@Table(name = "daily_stats",
+    uniqueConstraints = @UniqueConstraint(name = "uk_daily_stats_date_metric", columnNames = {"stat_date", "metric"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(nullable = false, length = 32)
+    private String metric; // QUESTIONS, ANSWERS, USERS
+
+    @Column(nullable = false)
+    private Long total = 0L;
+}
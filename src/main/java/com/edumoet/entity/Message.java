@@ -11,7 +11,10 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+    // Lịch sử hội thoại theo con trỏ id (mỗi chiều gửi là 1 khoảng liên tục của index)
+    @Index(name = "idx_messages_sender_receiver_id", columnList = "sender_id, receiver_id, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
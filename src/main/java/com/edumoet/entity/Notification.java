@@ -10,7 +10,12 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    // Hộp thư và đếm chưa đọc: quét theo khoảng id của 1 user (id > mốc đã đọc)
+    @Index(name = "idx_notifications_user_id", columnList = "user_id, id"),
+    // Job dọn thông báo cũ (NotificationRetentionJob)
+    @Index(name = "idx_notifications_created_at", columnList = "created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,6 +54,17 @@ public class Notification {
 
     private LocalDateTime readAt;
 
+    // Đã đọc nhờ mốc NotificationReadState (không lưu trên dòng này), do NotificationService gán khi nạp
+    @Transient
+    private boolean readByWatermark;
+
+    /**
+     * Đã đọc: cờ riêng của thông báo hoặc nằm dưới mốc "đánh dấu tất cả đã đọc"
+     */
+    public boolean isEffectivelyRead() {
+        return Boolean.TRUE.equals(isRead) || readByWatermark;
+    }
+
     public void markAsRead() {
         this.isRead = true;
         this.readAt = LocalDateTime.now();
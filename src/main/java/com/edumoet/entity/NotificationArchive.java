@@ -0,0 +1,49 @@
+package com.edumoet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Thông báo đã đọc quá hạn giữ lại, được NotificationRetentionJob chuyển khỏi bảng notifications
+ * (DELETE ... OUTPUT INTO). Không có khóa ngoại để user bị xóa không kéo theo bảng lưu trữ.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = {
+    @Index(name = "idx_notifications_archive_user", columnList = "user_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationArchive {
+
+    // Giữ nguyên id của thông báo gốc
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String message;
+
+    private String link;
+
+    @Column(name = "sender_id")
+    private Long senderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,31 @@
+package com.edumoet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mốc đã đọc thông báo của 1 user: mọi thông báo có id <= lastReadId được coi là đã đọc.
+ * "Đánh dấu tất cả đã đọc" chỉ ghi 1 dòng ở đây; cờ is_read của từng thông báo chỉ dùng cho id > mốc.
+ * Được cập nhật bởi NotificationService bằng SQL, không ghi trực tiếp qua JPA.
+ */
+@Entity
+@Table(name = "notification_read_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReadState {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_read_id", nullable = false)
+    private Long lastReadId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -11,6 +11,8 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.edumoet.service.common.DailyStatsListener;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -18,12 +20,18 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "questions")
+@Table(name = "questions", indexes = {
+    // Keyset feeds: (sort column, id) seeks
+    @Index(name = "idx_questions_feed_created", columnList = "is_approved, is_locked, created_at, id"),
+    @Index(name = "idx_questions_feed_votes", columnList = "is_approved, is_locked, votes, id"),
+    @Index(name = "idx_questions_feed_answers", columnList = "is_approved, is_locked, answer_count, id"),
+    @Index(name = "idx_questions_author_created", columnList = "author_id, created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, DailyStatsListener.class})
 public class Question {
 
     @Id
@@ -39,22 +47,25 @@ public class Question {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String body;
 
-    @Column(nullable = false)
+    // Written only by QuestionViewCounter's batched UPDATE, so entity saves never overwrite flushed views
+    @Column(nullable = false, updatable = false)
     private Integer views = 0;
 
-    @Column(nullable = false)
+    // Changed only through VoteService's atomic "votes = votes ± 1" UPDATE
+    @Column(name = "votes", nullable = false, updatable = false)
     private Integer votes = 0;
 
-    @Column(nullable = false)
+    // Changed only through atomic "answer_count ± 1" UPDATEs; CounterReconciler repairs drift
+    @Column(name = "answer_count", nullable = false, updatable = false)
     private Integer answerCount = 0;
 
     @Column(nullable = false)
     private Boolean isPinned = false;
 
-    @Column(nullable = false)
+    @Column(name = "is_locked", nullable = false)
     private Boolean isLocked = false;
 
-    @Column(nullable = false)
+    @Column(name = "is_approved", nullable = false)
     private Boolean isApproved = false;  // For moderation - default needs approval
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -9,17 +9,21 @@ import lombok.Setter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.edumoet.service.common.TagChangeListener;
+
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "tags")
+@Table(name = "tags", indexes = {
+    @Index(name = "idx_tags_question_count", columnList = "question_count DESC, name")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, TagChangeListener.class})
 public class Tag {
 
     @Id
@@ -33,7 +37,8 @@ public class Tag {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @Column(nullable = false)
+    // Changed only through TagService's atomic UPDATEs; CounterReconciler repairs drift
+    @Column(nullable = false, updatable = false)
     private Integer questionCount = 0;
 
     @ManyToMany(mappedBy = "tags")
@@ -43,16 +48,6 @@ public class Tag {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    public void incrementQuestionCount() {
-        this.questionCount++;
-    }
-
-    public void decrementQuestionCount() {
-        if (this.questionCount > 0) {
-            this.questionCount--;
-        }
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
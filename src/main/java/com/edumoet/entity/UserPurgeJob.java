@@ -0,0 +1,55 @@
+package com.edumoet.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Job xóa toàn bộ dữ liệu của 1 người dùng ở chế độ nền.
+ * Không có FK tới users vì chính user đó sẽ bị xóa ở bước cuối.
+ */
+@Entity
+@Table(name = "user_purge_jobs",
+    indexes = {
+        @Index(name = "idx_purge_status", columnList = "status,id"),
+        @Index(name = "idx_purge_user", columnList = "user_id")
+    }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPurgeJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String username;
+
+    @Column(nullable = false)
+    private String status = "PENDING"; // PENDING, RUNNING, DONE, FAILED
+
+    @Column(nullable = false)
+    private String phase; // Bước đang chạy (xem UserPurgeService.Phase)
+
+    @Column(name = "deleted_rows", nullable = false)
+    private Long deletedRows = 0L;
+
+    @Column(columnDefinition = "NVARCHAR(MAX)")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -4,6 +4,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,6 +13,7 @@ import com.edumoet.entity.Answer;
 import com.edumoet.entity.Question;
 import com.edumoet.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,6 +22,11 @@ public interface AnswerRepository extends JpaRepository<Answer, Long> {
     @Query("SELECT a FROM Answer a LEFT JOIN FETCH a.images WHERE a.question = :question ORDER BY a.votes DESC, a.createdAt DESC")
     List<Answer> findByQuestionOrderByVotesDescCreatedAtDesc(@Param("question") Question question);
     
+    // Detail page: answers + authors + images in one statement
+    @Query("SELECT DISTINCT a FROM Answer a JOIN FETCH a.author LEFT JOIN FETCH a.images " +
+           "WHERE a.question.id = :questionId ORDER BY a.votes DESC, a.createdAt DESC")
+    List<Answer> findForQuestionPage(@Param("questionId") Long questionId);
+    
     Page<Answer> findByAuthor(User author, Pageable pageable);
     
     @Query("SELECT COUNT(a) FROM Answer a WHERE a.author = :author")
@@ -35,5 +42,30 @@ public interface AnswerRepository extends JpaRepository<Answer, Long> {
     
     @EntityGraph(attributePaths = {"author", "question"})
     Page<Answer> findByBodyContaining(String keyword, Pageable pageable);
+    
+    // Vote ledger (user_votes_answers, primary key (user_id, answer_id))
+    @Modifying
+    @Query(value = "INSERT INTO user_votes_answers (user_id, answer_id) " +
+                   "SELECT :userId, :answerId WHERE NOT EXISTS (" +
+                   "SELECT 1 FROM user_votes_answers WITH (UPDLOCK, HOLDLOCK) " +
+                   "WHERE user_id = :userId AND answer_id = :answerId)", nativeQuery = true)
+    int insertVote(@Param("userId") Long userId, @Param("answerId") Long answerId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM user_votes_answers WHERE user_id = :userId AND answer_id = :answerId", nativeQuery = true)
+    int deleteVote(@Param("userId") Long userId, @Param("answerId") Long answerId);
+    
+    @Query(value = "SELECT COUNT(*) FROM user_votes_answers WHERE user_id = :userId AND answer_id = :answerId", nativeQuery = true)
+    int countVote(@Param("userId") Long userId, @Param("answerId") Long answerId);
+    
+    // Vote state for the answers shown on one page only
+    @Query(value = "SELECT answer_id FROM user_votes_answers WHERE user_id = :userId AND answer_id IN (:answerIds)", nativeQuery = true)
+    List<Long> findVotedAnswerIds(@Param("userId") Long userId, @Param("answerIds") Collection<Long> answerIds);
+    
+    @Modifying
+    @Query("UPDATE Answer a SET a.votes = a.votes + :delta WHERE a.id = :id")
+    int adjustVotes(@Param("id") Long id, @Param("delta") int delta);
+    
+    @Query("SELECT a.votes FROM Answer a WHERE a.id = :id")
+    Integer findVotesById(@Param("id") Long id);
 }
-
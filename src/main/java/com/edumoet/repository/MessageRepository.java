@@ -23,23 +23,23 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     
     long countByReceiverAndIsReadFalse(User receiver);
     
+    long countByReceiverUsernameAndIsReadFalse(String username);
+    
     // For user deletion
     void deleteBySender(User sender);
     void deleteByReceiver(User receiver);
     
-    // For conversations
-    List<Message> findBySenderOrReceiverOrderByCreatedAtDesc(User sender, User receiver);
-    long countBySenderAndReceiverAndIsReadFalse(User sender, User receiver);
-    
-    // Get conversation messages between two users
+    // Lịch sử hội thoại giữa 2 user: trang tin cũ hơn before (mới nhất trước)
+    @Query("SELECT m FROM Message m WHERE " +
+           "((m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1)) " +
+           "AND m.id < :before ORDER BY m.id DESC")
+    List<Message> findConversationBefore(@Param("user1") User user1, @Param("user2") User user2,
+                                         @Param("before") Long before, Pageable pageable);
+
+    // Tin mới hơn after (cũ nhất trước), dùng khi client kết nối lại
     @Query("SELECT m FROM Message m WHERE " +
-           "(m.sender = :user1 AND m.receiver = :user2) OR " +
-           "(m.sender = :user3 AND m.receiver = :user4) " +
-           "ORDER BY m.createdAt ASC")
-    List<Message> findConversationMessages(
-        @Param("user1") User user1, 
-        @Param("user2") User user2,
-        @Param("user3") User user3,
-        @Param("user4") User user4
-    );
+           "((m.sender = :user1 AND m.receiver = :user2) OR (m.sender = :user2 AND m.receiver = :user1)) " +
+           "AND m.id > :after ORDER BY m.id ASC")
+    List<Message> findConversationAfter(@Param("user1") User user1, @Param("user2") User user2,
+                                        @Param("after") Long after, Pageable pageable);
 }
@@ -3,6 +3,8 @@ package com.edumoet.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.edumoet.entity.Notification;
@@ -13,11 +15,24 @@ import java.util.List;
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
-    List<Notification> findByUserOrderByCreatedAtDesc(User user);
+    // Hộp thư theo con trỏ: id giảm dần (cùng thứ tự với created_at), dùng index (user_id, id)
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND n.id < :before ORDER BY n.id DESC")
+    List<Notification> findInboxPage(@Param("user") User user, @Param("before") long before, Pageable pageable);
     
-    List<Notification> findByUserAndIsReadFalseOrderByCreatedAtDesc(User user);
+    // Chưa đọc = trên mốc đã đọc của user và chưa được đánh dấu riêng (index user_id, id)
+    @Query("SELECT n FROM Notification n WHERE n.user = :user AND n.id > :after AND n.isRead = false ORDER BY n.id DESC")
+    List<Notification> findUnread(@Param("user") User user, @Param("after") long after);
     
-    long countByIsReadFalse();
+    @Query(value = "SELECT COUNT(*) FROM notifications n " +
+                   "LEFT JOIN notification_read_state w ON w.user_id = n.user_id " +
+                   "WHERE n.is_read = 0 AND n.id > COALESCE(w.last_read_id, 0)", nativeQuery = true)
+    long countUnread();
+    
+    @Query(value = "SELECT COUNT(*) FROM notifications n " +
+                   "JOIN users u ON u.id = n.user_id " +
+                   "LEFT JOIN notification_read_state w ON w.user_id = n.user_id " +
+                   "WHERE u.username = :username AND n.is_read = 0 AND n.id > COALESCE(w.last_read_id, 0)", nativeQuery = true)
+    long countUnreadByUsername(@Param("username") String username);
     
     // For user deletion
     void deleteByUser(User user);
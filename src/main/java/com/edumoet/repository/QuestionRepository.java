@@ -11,13 +11,22 @@ import org.springframework.stereotype.Repository;
 import com.edumoet.entity.Question;
 import com.edumoet.entity.Tag;
 import com.edumoet.entity.User;
+import com.edumoet.service.common.QuestionSummary;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     
+    // List pages: summary projection (no full body, author/tags attached afterwards in bulk)
+    String SUMMARY_SELECT = "SELECT new com.edumoet.service.common.QuestionSummary(" +
+            "q.id, q.title, SUBSTRING(q.body, 1, " + QuestionSummary.EXCERPT_LENGTH + "), " +
+            "q.views, q.votes, q.answerCount, q.isPinned, q.isLocked, q.isApproved, " +
+            "q.acceptedAnswer.id, q.createdAt, q.author.id) ";
+    
     @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.tags LEFT JOIN FETCH q.author WHERE q.isApproved = true ORDER BY q.createdAt DESC")
     List<Question> findAllWithTagsAndAuthor();
     
@@ -41,12 +50,76 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     
     Page<Question> findByTagsIn(List<Tag> tags, Pageable pageable);
     
-    @Query("SELECT q FROM Question q WHERE q.isApproved = true AND (LOWER(q.title) LIKE LOWER(CONCAT('%', :search, '%')) OR q.body LIKE CONCAT('%', :search, '%'))")
-    Page<Question> searchQuestions(@Param("search") String search, Pageable pageable);
+    // Search index rebuild (keyset by id, no entity hydration)
+    @Query("SELECT q.id, q.title, q.body, q.isApproved, q.isLocked FROM Question q WHERE q.id > :afterId ORDER BY q.id ASC")
+    List<Object[]> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // locked: [false] = bỏ câu hỏi bị khóa, [true, false] = tất cả
+    @Query(value = SUMMARY_SELECT + "FROM Question q WHERE q.isApproved = true AND q.isLocked IN :locked AND (LOWER(q.title) LIKE LOWER(CONCAT('%', :search, '%')) OR q.body LIKE CONCAT('%', :search, '%'))",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.isApproved = true AND q.isLocked IN :locked AND (LOWER(q.title) LIKE LOWER(CONCAT('%', :search, '%')) OR q.body LIKE CONCAT('%', :search, '%'))")
+    Page<QuestionSummary> searchQuestions(@Param("search") String search, @Param("locked") List<Boolean> locked, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "FROM Question q WHERE q.id IN :ids")
+    List<QuestionSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query(value = SUMMARY_SELECT + "FROM Question q WHERE q.isApproved IN :approved",
+           countQuery = "SELECT COUNT(q) FROM Question q WHERE q.isApproved IN :approved")
+    Page<QuestionSummary> findSummaries(@Param("approved") Collection<Boolean> approved, Pageable pageable);
+    
+    // One query per page for the tags of every summary: rows of (question id, tag id, tag name)
+    @Query("SELECT q.id, t.id, t.name FROM Question q JOIN q.tags t WHERE q.id IN :ids ORDER BY t.name")
+    List<Object[]> findTagRefsByQuestionIdIn(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT q FROM Question q JOIN q.tags t WHERE q.isApproved = true AND t = :tag ORDER BY q.createdAt DESC")
     Page<Question> findByTag(@Param("tag") Tag tag, Pageable pageable);
     
+    // ================== KEYSET (CURSOR) FEEDS ==================
+    // Pageable is only used as LIMIT: List return type → no COUNT(*) query
+    
+    @Query(SUMMARY_SELECT + "FROM Question q WHERE q.isApproved IN :approved AND q.isLocked IN :locked " +
+           "AND (q.createdAt < :createdAt OR (q.createdAt = :createdAt AND q.id < :id)) " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummary> findFeedByNewest(@Param("approved") Collection<Boolean> approved,
+                                    @Param("locked") Collection<Boolean> locked,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "FROM Question q WHERE q.isApproved IN :approved AND q.isLocked IN :locked " +
+           "AND (q.votes < :votes OR (q.votes = :votes AND q.id < :id)) " +
+           "ORDER BY q.votes DESC, q.id DESC")
+    List<QuestionSummary> findFeedByVotes(@Param("approved") Collection<Boolean> approved,
+                                   @Param("locked") Collection<Boolean> locked,
+                                   @Param("votes") Integer votes,
+                                   @Param("id") Long id,
+                                   Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "FROM Question q WHERE q.isApproved IN :approved AND q.isLocked IN :locked " +
+           "AND (q.answerCount < :answerCount OR (q.answerCount = :answerCount AND q.id < :id)) " +
+           "ORDER BY q.answerCount DESC, q.id DESC")
+    List<QuestionSummary> findFeedByAnswers(@Param("approved") Collection<Boolean> approved,
+                                     @Param("locked") Collection<Boolean> locked,
+                                     @Param("answerCount") Integer answerCount,
+                                     @Param("id") Long id,
+                                     Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "FROM Question q JOIN q.tags t WHERE q.isApproved = true AND t = :tag " +
+           "AND (q.createdAt < :createdAt OR (q.createdAt = :createdAt AND q.id < :id)) " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummary> findFeedByTag(@Param("tag") Tag tag,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "FROM Question q WHERE q.author = :author AND q.isApproved IN :approved " +
+           "AND (q.createdAt < :createdAt OR (q.createdAt = :createdAt AND q.id < :id)) " +
+           "ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuestionSummary> findFeedByAuthor(@Param("author") User author,
+                                    @Param("approved") Collection<Boolean> approved,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable limit);
+    
     @Query("SELECT COUNT(q) FROM Question q WHERE q.author = :author")
     Long countByAuthor(@Param("author") User author);
 
@@ -72,5 +145,31 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query(value = "DELETE FROM question_tags WHERE question_id = :questionId", nativeQuery = true)
     void deleteQuestionTags(@Param("questionId") Long questionId);
-}
+    
+    // Vote ledger (user_votes_questions, primary key (user_id, question_id))
+    @Modifying
+    @Query(value = "INSERT INTO user_votes_questions (user_id, question_id) " +
+                   "SELECT :userId, :questionId WHERE NOT EXISTS (" +
+                   "SELECT 1 FROM user_votes_questions WITH (UPDLOCK, HOLDLOCK) " +
+                   "WHERE user_id = :userId AND question_id = :questionId)", nativeQuery = true)
+    int insertVote(@Param("userId") Long userId, @Param("questionId") Long questionId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM user_votes_questions WHERE user_id = :userId AND question_id = :questionId", nativeQuery = true)
+    int deleteVote(@Param("userId") Long userId, @Param("questionId") Long questionId);
+    
+    @Query(value = "SELECT COUNT(*) FROM user_votes_questions WHERE user_id = :userId AND question_id = :questionId", nativeQuery = true)
+    int countVote(@Param("userId") Long userId, @Param("questionId") Long questionId);
+    
+    @Modifying
+    @Query("UPDATE Question q SET q.votes = q.votes + :delta WHERE q.id = :id")
+    int adjustVotes(@Param("id") Long id, @Param("delta") int delta);
 
+    @Modifying
+    @Query("UPDATE Question q SET q.answerCount = CASE WHEN q.answerCount + :delta < 0 THEN 0 " +
+           "ELSE q.answerCount + :delta END WHERE q.id = :id")
+    int adjustAnswerCount(@Param("id") Long id, @Param("delta") int delta);
+    
+    @Query("SELECT q.votes FROM Question q WHERE q.id = :id")
+    Integer findVotesById(@Param("id") Long id);
+}
@@ -9,6 +9,8 @@ import org.springframework.stereotype.Repository;
 
 import com.edumoet.entity.Tag;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,9 +20,23 @@ public interface TagRepository extends JpaRepository<Tag, Long> {
     
     Boolean existsByName(String name);
     
+    long countByIdIn(Collection<Long> ids);
+    
     @Query("SELECT t FROM Tag t ORDER BY t.questionCount DESC")
     Page<Tag> findAllByOrderByQuestionCountDesc(Pageable pageable);
     
+    /**
+     * Top tags theo số câu hỏi (dùng index idx_tags_question_count, không đếm tổng)
+     */
+    @Query("SELECT t FROM Tag t ORDER BY t.questionCount DESC, t.name ASC")
+    List<Tag> findTopByQuestionCount(Pageable pageable);
+    
+    /**
+     * Chỉ các cột cần cho chỉ mục gợi ý tag: [id, name, questionCount]
+     */
+    @Query("SELECT t.id, t.name, t.questionCount FROM Tag t")
+    List<Object[]> findSuggestionRows();
+    
     @Query("SELECT t FROM Tag t ORDER BY t.name ASC")
     Page<Tag> findAllByOrderByNameAsc(Pageable pageable);
     
@@ -0,0 +1,18 @@
+package com.edumoet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.edumoet.entity.UserPurgeJob;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface UserPurgeJobRepository extends JpaRepository<UserPurgeJob, Long> {
+    
+    // Oldest unfinished job (RUNNING = interrupted by a crash/restart, resumed from its phase)
+    Optional<UserPurgeJob> findFirstByStatusInOrderByIdAsc(Collection<String> statuses);
+    
+    Optional<UserPurgeJob> findFirstByUserIdAndStatusInOrderByIdDesc(Long userId, Collection<String> statuses);
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Repository;
 
 import com.edumoet.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByUsername(String username);
     
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+    
     Optional<User> findByEmail(String email);
     
     Boolean existsByUsername(String username);
@@ -55,5 +59,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // For statistics - fetch users by reputation (no join fetch to avoid DISTINCT issue)
     @Query("SELECT u FROM User u ORDER BY u.reputation DESC")
     List<User> findTopUsersByReputation(Pageable pageable);
+    
+    // Bulk author lookup for list pages: rows of (id, username, profileImage, role)
+    @Query("SELECT u.id, u.username, u.profileImage, u.role FROM User u WHERE u.id IN :ids")
+    List<Object[]> findAuthorRowsByIdIn(@Param("ids") Collection<Long> ids);
 }
-
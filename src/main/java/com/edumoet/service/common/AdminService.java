@@ -7,8 +7,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.edumoet.entity.Question;
 import com.edumoet.entity.User;
+import com.edumoet.entity.UserPurgeJob;
 import com.edumoet.repository.*;
 
 import java.time.LocalDateTime;
@@ -28,21 +28,6 @@ public class AdminService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Autowired
-    private NotificationRepository notificationRepository;
-
-    @Autowired
-    private ActivityLogRepository activityLogRepository;
-
-    @Autowired
-    private MessageRepository messageRepository;
-
-    @Autowired
-    private ReportRepository reportRepository;
-
-    @Autowired
-    private QuestionService questionService;
-
     @Autowired
     private QuestionRepository questionRepository;
     
@@ -52,6 +37,9 @@ public class AdminService {
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private UserPurgeService userPurgeService;
+
     // ================== QUẢN LÝ NGƯỜI DÙNG ==================
 
     /**
@@ -218,49 +206,10 @@ public class AdminService {
 
     /**
      * Xóa người dùng (cẩn thận!)
-     * Xóa tất cả dữ liệu liên quan trước
+     * Tài khoản bị vô hiệu hóa ngay, dữ liệu được xóa theo lô bởi UserPurgeService ở chế độ nền
      */
-    public void deleteUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        // Delete related entities first to avoid FK constraint violations
-        // Note: This will delete ALL user data permanently!
-        
-        // 1. Delete notifications
-        notificationRepository.deleteByUser(user);
-        
-        // 2. Delete activity logs
-        activityLogRepository.deleteByUser(user);
-        
-        // 3. Delete messages (sent and received)
-        messageRepository.deleteBySender(user);
-        messageRepository.deleteByReceiver(user);
-        
-        // 4. Delete reports
-        reportRepository.deleteByReporter(user);
-        
-        // 5. Delete questions manually (to properly handle question_tags FK constraint)
-        // Query all questions by this user and delete them one by one
-        List<Question> userQuestions = questionRepository.findByAuthor(user);
-        System.out.println("Deleting " + userQuestions.size() + " questions for user " + user.getUsername());
-        
-        for (Question question : userQuestions) {
-            try {
-                questionService.deleteQuestion(question.getId());
-                System.out.println("Deleted question ID: " + question.getId());
-            } catch (Exception e) {
-                System.err.println("Error deleting question " + question.getId() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-        
-        // 6. Answers and Comments will be cascade deleted via JPA @OneToMany mappings
-        
-        // Finally, delete the user
-        System.out.println("Deleting user ID: " + userId);
-        userRepository.deleteById(userId);
-        System.out.println("Successfully deleted user: " + user.getUsername());
+    public UserPurgeJob deleteUser(Long userId) {
+        return userPurgeService.schedule(userId);
     }
 
     /**
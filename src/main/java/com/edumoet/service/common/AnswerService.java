@@ -1,6 +1,7 @@
 package com.edumoet.service.common;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,6 +27,12 @@ public class AnswerService {
     
     @Autowired
     private QuestionRepository questionRepository;
+    
+    @Autowired
+    private VoteService voteService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     public Answer createAnswer(Answer answer) {
         answer.setVotes(0);
@@ -33,11 +40,11 @@ public class AnswerService {
         
         Answer savedAnswer = answerRepository.save(answer);
         
-        // Increment answer count
+        // Increment answer count (atomic UPDATE, no read-modify-write on the entity)
         Question question = answer.getQuestion();
         if (question != null) {
-            question.setAnswerCount(question.getAnswerCount() + 1);
-            questionRepository.save(question);
+            questionRepository.adjustAnswerCount(question.getId(), 1);
+            eventPublisher.publishEvent(QuestionChangedEvent.countsChanged(question.getId()));
         }
         
         return savedAnswer;
@@ -65,10 +72,10 @@ public class AnswerService {
             Answer answer = answerOpt.get();
             Question question = answer.getQuestion();
             
-            // Decrement answer count
-            if (question != null && question.getAnswerCount() > 0) {
-                question.setAnswerCount(question.getAnswerCount() - 1);
-                questionRepository.save(question);
+            // Decrement answer count (atomic UPDATE, never below 0)
+            if (question != null) {
+                questionRepository.adjustAnswerCount(question.getId(), -1);
+                eventPublisher.publishEvent(QuestionChangedEvent.countsChanged(question.getId()));
             }
             
             answerRepository.deleteById(id);
@@ -97,55 +104,21 @@ public class AnswerService {
      * - Đã vote → Click upvote → -1 vote (undo)
      * 
      * Example: 13 votes → user click → 14 votes → user click again → 13 votes
+     * Ghi vào sổ vote bằng SQL (VoteService), không nạp danh sách vote của user
      */
     public void upvoteAnswer(Answer answer, User user) {
-        boolean hasUpvoted = user.getVotedAnswers().contains(answer);
-        
-        System.out.println("🔍 Upvote Answer #" + answer.getId() + " by User #" + user.getId());
-        System.out.println("   Current votes: " + answer.getVotes());
-        System.out.println("   Has upvoted: " + hasUpvoted);
-        
-        if (hasUpvoted) {
-            // Already upvoted → Undo upvote (-1)
-            System.out.println("   ➡️ Undo upvote: " + answer.getVotes() + " - 1 = " + (answer.getVotes() - 1));
-            answer.downvote();
-            user.getVotedAnswers().remove(answer);
-        } else {
-            // Not voted yet → Add upvote (+1)
-            System.out.println("   ➡️ New upvote: " + answer.getVotes() + " + 1 = " + (answer.getVotes() + 1));
-            answer.upvote();
-            user.getVotedAnswers().add(answer);
-        }
-        
-        System.out.println("   ✅ Final votes: " + answer.getVotes());
-        answerRepository.save(answer);
+        int votes = voteService.toggleAnswerVote(answer.getId(), user.getId());
+        answer.setVotes(votes);
     }
 
     /**
      * Downvote (Undo upvote):
      * - Chỉ hoạt động khi user ĐÃ upvote trước đó
-     * - Giảm 1 vote và remove khỏi votedAnswers
+     * - Giảm 1 vote và xóa khỏi sổ vote
      */
     public void downvoteAnswer(Answer answer, User user) {
-        boolean hasUpvoted = user.getVotedAnswers().contains(answer);
-        
-        System.out.println("🔽 Downvote Answer #" + answer.getId() + " by User #" + user.getId());
-        System.out.println("   Current votes: " + answer.getVotes());
-        System.out.println("   Has upvoted: " + hasUpvoted);
-        
-        if (hasUpvoted) {
-            // Đã upvote → Downvote = Undo (-1)
-            System.out.println("   ➡️ Downvote (undo upvote): " + answer.getVotes() + " - 1 = " + (answer.getVotes() - 1));
-            answer.downvote();
-            user.getVotedAnswers().remove(answer);
-        } else {
-            // Chưa upvote → Không cho downvote
-            System.out.println("   ⚠️ Cannot downvote - must upvote first");
-            throw new RuntimeException("Bạn phải upvote trước khi downvote");
-        }
-        
-        System.out.println("   ✅ Final votes: " + answer.getVotes());
-        answerRepository.save(answer);
+        int votes = voteService.removeAnswerVote(answer.getId(), user.getId());
+        answer.setVotes(votes);
     }
 
     public Long countByAuthor(User author) {
@@ -0,0 +1,39 @@
+package com.edumoet.service.common;
+
+/**
+ * 1 tin WebSocket chuyển giữa các node: tới 1 user (/user/{username}{destination}) hoặc 1 topic
+ */
+public class ClusterEnvelope {
+
+    private final String originNodeId;
+    private final String username;      // null → tin topic
+    private final String destination;
+    private final Object payload;
+
+    public ClusterEnvelope(String originNodeId, String username, String destination, Object payload) {
+        this.originNodeId = originNodeId;
+        this.username = username;
+        this.destination = destination;
+        this.payload = payload;
+    }
+
+    public String getOriginNodeId() {
+        return originNodeId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public Object getPayload() {
+        return payload;
+    }
+
+    public boolean isUserMessage() {
+        return username != null;
+    }
+}
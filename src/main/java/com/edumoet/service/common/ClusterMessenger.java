@@ -0,0 +1,106 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cluster Messenger - Điểm gửi tin WebSocket duy nhất của ứng dụng, chạy đúng khi có nhiều node
+ *
+ * - Ghi nhận session STOMP của node này (PresenceService báo mở / đóng) vào danh bạ chung của ClusterTransport
+ * - Tin cho user: giao cục bộ nếu node này giữ session, chuyển sang node khác qua transport nếu session ở đó,
+ *   bỏ qua nếu user không online ở node nào
+ * - Tin topic: giao cục bộ và phát cho mọi node khác
+ */
+@Service
+public class ClusterMessenger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMessenger.class);
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ClusterTransport transport;
+
+    @Value("${cluster.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    @PostConstruct
+    public void join() {
+        nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+                ? UUID.randomUUID().toString().substring(0, 8)
+                : configuredNodeId;
+        transport.subscribe(nodeId, this::deliverLocally);
+        logger.info("WebSocket node {} joined cluster via {}", nodeId, transport.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    public void leave() {
+        transport.unsubscribe(nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Gửi tới /user/{username}{destination} trên node đang giữ session của user
+     */
+    public void sendToUser(String username, String destination, Object payload) {
+        Set<String> nodes = transport.nodesFor(username);
+        for (String node : nodes) {
+            if (node.equals(nodeId)) {
+                messagingTemplate.convertAndSendToUser(username, destination, payload);
+            } else {
+                transport.publish(node, new ClusterEnvelope(nodeId, username, destination, payload));
+            }
+        }
+    }
+
+    /**
+     * Gửi tới topic trên mọi node
+     */
+    public void sendToTopic(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        transport.publish(null, new ClusterEnvelope(nodeId, null, destination, payload));
+    }
+
+    /**
+     * User có session trên ít nhất 1 node
+     */
+    public boolean isOnline(String username) {
+        return !transport.nodesFor(username).isEmpty();
+    }
+
+    private void deliverLocally(ClusterEnvelope envelope) {
+        if (envelope.isUserMessage()) {
+            messagingTemplate.convertAndSendToUser(envelope.getUsername(), envelope.getDestination(), envelope.getPayload());
+        } else {
+            messagingTemplate.convertAndSend(envelope.getDestination(), envelope.getPayload());
+        }
+    }
+
+    // ================== SESSION DIRECTORY ==================
+
+    /**
+     * 1 session của user vừa mở trên node này (gọi từ PresenceService)
+     */
+    public void sessionOpened(String username) {
+        transport.sessionOpened(nodeId, username);
+    }
+
+    public void sessionClosed(String username) {
+        transport.sessionClosed(nodeId, username);
+    }
+}
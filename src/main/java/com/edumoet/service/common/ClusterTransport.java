@@ -0,0 +1,38 @@
+package com.edumoet.service.common;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Cluster Transport - Kênh chuyển tin WebSocket giữa các node của ứng dụng
+ *
+ * Mỗi node vẫn giao tin cho client của mình qua simple broker cục bộ; transport chỉ lo:
+ * - Chuyển 1 envelope tới node đang giữ session của user (hoặc tới mọi node với tin topic)
+ * - Danh bạ session dùng chung: user nào đang có session trên node nào
+ *
+ * Bản triển khai qua mạng (Redis pub/sub, message queue...) chỉ cần cài interface này;
+ * ClusterMessenger không đổi. Mặc định dùng LoopbackClusterTransport (trong cùng JVM).
+ */
+public interface ClusterTransport {
+
+    /**
+     * Node nodeId bắt đầu nhận envelope gửi tới nó (và tin phát cho mọi node)
+     */
+    void subscribe(String nodeId, Consumer<ClusterEnvelope> handler);
+
+    void unsubscribe(String nodeId);
+
+    /**
+     * Gửi envelope tới targetNodeId; targetNodeId = null → mọi node trừ node gửi
+     */
+    void publish(String targetNodeId, ClusterEnvelope envelope);
+
+    void sessionOpened(String nodeId, String username);
+
+    void sessionClosed(String nodeId, String username);
+
+    /**
+     * Các node đang giữ ít nhất 1 session của user (rỗng = user không online ở đâu cả)
+     */
+    Set<String> nodesFor(String username);
+}
@@ -0,0 +1,236 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counter Reconciler - Tính lại các bộ đếm phi chuẩn hóa (Tag.questionCount, Question.answerCount)
+ *
+ * - Bình thường bộ đếm được cộng / trừ bằng UPDATE nguyên tử ("x = x ± 1") khi ghi
+ * - Job này quét bảng theo từng khúc id (keyset), mỗi khúc 1 transaction ngắn:
+ *   GROUP BY trên bảng con rồi UPDATE chỉ những dòng bị lệch (OUTPUT giá trị cũ / mới)
+ * - Kết quả lần chạy gần nhất được giữ lại để admin xem (/admin/statistics/api/counters)
+ */
+@Service
+public class CounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CounterReconciler.class);
+
+    private static final String TAG_CHUNK_SQL =
+            "UPDATE t SET t.question_count = COALESCE(c.cnt, 0) " +
+            "OUTPUT inserted.id, inserted.name, inserted.description, " +
+            "deleted.question_count AS old_count, inserted.question_count " +
+            "FROM tags t " +
+            "LEFT JOIN (SELECT tag_id, COUNT(*) AS cnt FROM question_tags " +
+            "           WHERE tag_id > :from AND tag_id <= :to GROUP BY tag_id) c ON c.tag_id = t.id " +
+            "WHERE t.id > :from AND t.id <= :to AND t.question_count <> COALESCE(c.cnt, 0)";
+
+    private static final String QUESTION_CHUNK_SQL =
+            "UPDATE q SET q.answer_count = COALESCE(c.cnt, 0) " +
+            "OUTPUT inserted.id, deleted.answer_count AS old_count, inserted.answer_count " +
+            "FROM questions q " +
+            "LEFT JOIN (SELECT question_id, COUNT(*) AS cnt FROM answers " +
+            "           WHERE question_id > :from AND question_id <= :to GROUP BY question_id) c ON c.question_id = q.id " +
+            "WHERE q.id > :from AND q.id <= :to AND q.answer_count <> COALESCE(c.cnt, 0)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TagChangeListener tagChangeListener;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${counters.reconcile.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${counters.reconcile.report-samples:50}")
+    private int reportSamples;
+
+    private volatile Report lastReport;
+
+    /**
+     * 1 bộ đếm đã được sửa
+     */
+    public static class Fix {
+        private final String counter;
+        private final Long id;
+        private final int oldValue;
+        private final int newValue;
+
+        public Fix(String counter, Long id, int oldValue, int newValue) {
+            this.counter = counter;
+            this.id = id;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public String getCounter() {
+            return counter;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public int getOldValue() {
+            return oldValue;
+        }
+
+        public int getNewValue() {
+            return newValue;
+        }
+    }
+
+    /**
+     * Kết quả 1 lần chạy: số khúc đã quét, số dòng đã sửa và vài mẫu sửa đầu tiên
+     */
+    public static class Report {
+        private final LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private int chunks;
+        private int tagsFixed;
+        private int questionsFixed;
+        private final List<Fix> samples = new ArrayList<>();
+        private String error;
+
+        Report(LocalDateTime startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public int getTagsFixed() {
+            return tagsFixed;
+        }
+
+        public int getQuestionsFixed() {
+            return questionsFixed;
+        }
+
+        public List<Fix> getSamples() {
+            return Collections.unmodifiableList(samples);
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Kết quả lần chạy gần nhất (null nếu chưa chạy)
+     */
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    @Scheduled(cron = "${counters.reconcile-cron:0 0 4 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcileAll();
+        } catch (RuntimeException e) {
+            logger.error("Counter reconcile failed", e);
+        }
+    }
+
+    /**
+     * Tính lại toàn bộ bộ đếm của tags rồi questions, từng khúc chunkSize id
+     */
+    public synchronized Report reconcileAll() {
+        Report report = new Report(LocalDateTime.now());
+        try {
+            reconcileTable("tags", report, this::reconcileTagChunk);
+            reconcileTable("questions", report, this::reconcileQuestionChunk);
+        } catch (RuntimeException e) {
+            report.error = e.getMessage();
+            throw e;
+        } finally {
+            report.finishedAt = LocalDateTime.now();
+            lastReport = report;
+        }
+        if (report.tagsFixed > 0 || report.questionsFixed > 0) {
+            logger.warn("Counter reconcile fixed {} tag(s) and {} question(s)", report.tagsFixed, report.questionsFixed);
+        } else {
+            logger.info("Counter reconcile found no drift ({} chunks)", report.chunks);
+        }
+        return report;
+    }
+
+    private interface ChunkReconciler {
+        void reconcile(long from, long to, Report report);
+    }
+
+    private void reconcileTable(String table, Report report, ChunkReconciler chunk) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long from = 0;
+        while (true) {
+            // Biên trên của khúc: id lớn nhất trong chunkSize id kế tiếp
+            Long to = jdbc.queryForObject(
+                    "SELECT MAX(id) FROM (SELECT TOP (:size) id FROM " + table + " WHERE id > :from ORDER BY id) x",
+                    new MapSqlParameterSource("size", chunkSize).addValue("from", from), Long.class);
+            if (to == null) {
+                return;
+            }
+            long lower = from;
+            tx.executeWithoutResult(status -> chunk.reconcile(lower, to, report));
+            report.chunks++;
+            from = to;
+        }
+    }
+
+    private void reconcileTagChunk(long from, long to, Report report) {
+        List<TagPopularityRanking.RankedTag> fixed = new ArrayList<>();
+        jdbc.query(TAG_CHUNK_SQL, new MapSqlParameterSource("from", from).addValue("to", to), rs -> {
+            long id = rs.getLong("id");
+            int count = rs.getInt("question_count");
+            fixed.add(new TagPopularityRanking.RankedTag(id, rs.getString("name"), rs.getString("description"), count));
+            record(report, new Fix("tag.questionCount", id, rs.getInt("old_count"), count));
+            report.tagsFixed++;
+        });
+        // UPDATE bằng SQL không đi qua entity listener
+        tagChangeListener.afterCountsChanged(fixed);
+    }
+
+    private void reconcileQuestionChunk(long from, long to, Report report) {
+        jdbc.query(QUESTION_CHUNK_SQL, new MapSqlParameterSource("from", from).addValue("to", to), rs -> {
+            long id = rs.getLong("id");
+            record(report, new Fix("question.answerCount", id, rs.getInt("old_count"), rs.getInt("answer_count")));
+            report.questionsFixed++;
+            eventPublisher.publishEvent(QuestionChangedEvent.countsChanged(id));
+        });
+    }
+
+    private void record(Report report, Fix fix) {
+        if (report.samples.size() < reportSamples) {
+            report.samples.add(fix);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.edumoet.service.common;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo con trỏ (keyset)
+ * Không có tổng số trang: chỉ biết còn trang sau hay không và token để lấy trang sau
+ */
+public class CursorPage<T> implements Iterable<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return content.iterator();
+    }
+}
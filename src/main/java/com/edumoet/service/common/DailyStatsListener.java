@@ -0,0 +1,47 @@
+package com.edumoet.service.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.edumoet.entity.Answer;
+import com.edumoet.entity.Question;
+import com.edumoet.entity.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import java.time.LocalDateTime;
+
+/**
+ * JPA entity listener: mỗi Question / Answer / User được tạo hoặc xóa → cập nhật bộ đếm ngày tạo
+ * (Hibernate lấy listener từ Spring context nên có thể @Autowired)
+ */
+@Component
+public class DailyStatsListener {
+
+    @Autowired
+    private DailyStatsService dailyStatsService;
+
+    @PostPersist
+    public void afterPersist(Object entity) {
+        record(entity, 1);
+    }
+
+    @PostRemove
+    public void afterRemove(Object entity) {
+        record(entity, -1);
+    }
+
+    private void record(Object entity, long delta) {
+        if (entity instanceof Question) {
+            record(DailyStatsService.Metric.QUESTIONS, ((Question) entity).getCreatedAt(), delta);
+        } else if (entity instanceof Answer) {
+            record(DailyStatsService.Metric.ANSWERS, ((Answer) entity).getCreatedAt(), delta);
+        } else if (entity instanceof User) {
+            record(DailyStatsService.Metric.USERS, ((User) entity).getCreatedAt(), delta);
+        }
+    }
+
+    private void record(DailyStatsService.Metric metric, LocalDateTime createdAt, long delta) {
+        dailyStatsService.record(metric, createdAt != null ? createdAt.toLocalDate() : null, delta);
+    }
+}
@@ -0,0 +1,199 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily Stats Service - Bộ đếm theo ngày (bảng daily_stats) cho trang thống kê
+ *
+ * - Tạo / xóa Question, Answer, User → DailyStatsListener ghi nhận +1 / -1 vào ngày created_at
+ *   (sau khi transaction commit), gom trong bộ nhớ và MERGE xuống DB theo lô
+ * - Khi khởi động và mỗi đêm, các ngày gần đây được tính lại bằng GROUP BY theo ngày
+ *   (sửa sai lệch do xóa bằng SQL hàng loạt hoặc bộ đếm chưa kịp ghi khi tắt máy)
+ * - Dashboard chỉ đọc vài trăm dòng của daily_stats thay vì quét các bảng lớn
+ */
+@Service
+public class DailyStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyStatsService.class);
+
+    public enum Metric {
+        QUESTIONS("questions"),
+        ANSWERS("answers"),
+        USERS("users");
+
+        private final String table;
+
+        Metric(String table) {
+            this.table = table;
+        }
+    }
+
+    private static final String MERGE_SQL =
+            "MERGE daily_stats WITH (HOLDLOCK) AS t " +
+            "USING (SELECT ? AS stat_date, ? AS metric, ? AS delta) AS s " +
+            "ON t.stat_date = s.stat_date AND t.metric = s.metric " +
+            "WHEN MATCHED THEN UPDATE SET total = t.total + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (stat_date, metric, total) VALUES (s.stat_date, s.metric, s.delta);";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${stats.reconcile-days:200}")
+    private int reconcileDays;
+
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Ghi nhận thay đổi cho ngày date; chỉ được tính khi transaction hiện tại commit
+     */
+    public void record(Metric metric, LocalDate date, long delta) {
+        if (date == null) {
+            return;
+        }
+        String key = metric.name() + "|" + date;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(key, delta, Long::sum);
+                }
+            });
+        } else {
+            pending.merge(key, delta, Long::sum);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Ghi các bộ đếm đang chờ xuống daily_stats bằng 1 lô MERGE
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null && delta != 0) {
+                String[] parts = key.split("\\|");
+                batch.add(new Object[] { Date.valueOf(LocalDate.parse(parts[1])), parts[0], delta });
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.batchUpdate(MERGE_SQL, batch);
+            return batch.size();
+        } catch (RuntimeException e) {
+            for (Object[] row : batch) {
+                pending.merge(row[1] + "|" + ((Date) row[0]).toLocalDate(), (Long) row[2], Long::sum);
+            }
+            logger.error("Failed to flush {} daily stat counters", batch.size(), e);
+            return 0;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile(LocalDate.now().minusDays(reconcileDays), LocalDate.now().plusDays(1));
+        } catch (RuntimeException e) {
+            logger.error("Initial daily stats reconcile failed", e);
+        }
+    }
+
+    /**
+     * Mỗi đêm tính lại các ngày đã đóng (không đụng tới hôm nay đang được đếm trực tiếp)
+     */
+    @Scheduled(cron = "${stats.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile(LocalDate.now().minusDays(reconcileDays), LocalDate.now());
+        } catch (RuntimeException e) {
+            logger.error("Daily stats reconcile failed", e);
+        }
+    }
+
+    /**
+     * Thay bộ đếm của [from, to) bằng kết quả GROUP BY theo ngày trên bảng gốc (1 query / metric)
+     */
+    public synchronized void reconcile(LocalDate from, LocalDate to) {
+        flush();
+        Date fromDate = Date.valueOf(from);
+        Date toDate = Date.valueOf(to);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM daily_stats WHERE stat_date >= ? AND stat_date < ?", fromDate, toDate);
+            for (Metric metric : Metric.values()) {
+                jdbcTemplate.update(
+                        "INSERT INTO daily_stats (stat_date, metric, total) " +
+                        "SELECT CAST(created_at AS DATE), ?, COUNT(*) FROM " + metric.table + " " +
+                        "WHERE created_at >= ? AND created_at < ? GROUP BY CAST(created_at AS DATE)",
+                        metric.name(), fromDate, toDate);
+            }
+        });
+        logger.info("Daily stats reconciled for {} .. {}", from, to.minusDays(1));
+    }
+
+    /**
+     * Bộ đếm theo ngày từ ngày from tới nay, mỗi metric 1 map ngày → số lượng (1 query)
+     */
+    public Map<Metric, TreeMap<LocalDate, Long>> getDailyTotals(LocalDate from) {
+        Map<Metric, TreeMap<LocalDate, Long>> totals = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            totals.put(metric, new TreeMap<>());
+        }
+        jdbcTemplate.query("SELECT stat_date, metric, total FROM daily_stats WHERE stat_date >= ?",
+                rs -> {
+                    Metric metric = Metric.valueOf(rs.getString("metric"));
+                    totals.get(metric).merge(rs.getDate("stat_date").toLocalDate(), rs.getLong("total"), Long::sum);
+                },
+                Date.valueOf(from));
+        return totals;
+    }
+
+    /**
+     * Tổng của metric trong [from, to] (tính cả 2 đầu)
+     */
+    public static long sum(TreeMap<LocalDate, Long> daily, LocalDate from, LocalDate to) {
+        long total = 0;
+        for (Long value : daily.subMap(from, true, to, true).values()) {
+            total += value;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,99 @@
+package com.edumoet.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Con trỏ keyset cho các feed câu hỏi: (giá trị cột sắp xếp, id) của dòng cuối trang trước.
+ * Token gửi ra client được mã hóa base64url nên client không phụ thuộc vào định dạng bên trong.
+ */
+public final class FeedCursor {
+
+    /**
+     * Thứ tự sắp xếp của feed, mỗi loại dùng cặp khóa (cột, id) riêng
+     */
+    public enum Sort {
+        NEWEST,   // created_at, id
+        VOTES,    // votes, id
+        ANSWERS;  // answer_count, id
+
+        public static Sort fromParam(String value) {
+            if ("votes".equalsIgnoreCase(value)) {
+                return VOTES;
+            }
+            if ("answers".equalsIgnoreCase(value)) {
+                return ANSWERS;
+            }
+            return NEWEST;
+        }
+    }
+
+    // Giá trị "trước mọi dòng" cho trang đầu (datetime2 của SQL Server tối đa năm 9999)
+    private static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final Sort sort;
+    private final String key;
+    private final long id;
+
+    private FeedCursor(Sort sort, String key, long id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Con trỏ cho trang đầu tiên
+     */
+    public static FeedCursor first(Sort sort) {
+        String key = sort == Sort.NEWEST ? MAX_CREATED_AT.toString() : String.valueOf(Integer.MAX_VALUE);
+        return new FeedCursor(sort, key, Long.MAX_VALUE);
+    }
+
+    public static String encode(Sort sort, Object key, Long id) {
+        String raw = sort.name() + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã token; token rỗng, hỏng hoặc thuộc thứ tự sắp xếp khác → trang đầu
+     */
+    public static FeedCursor decode(String token, Sort expected) {
+        if (token == null || token.isBlank()) {
+            return first(expected);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !expected.name().equals(parts[0])) {
+                return first(expected);
+            }
+            FeedCursor cursor = new FeedCursor(expected, parts[1], Long.parseLong(parts[2]));
+            // Validate the key eagerly so a tampered token cannot fail later in the query
+            if (expected == Sort.NEWEST) {
+                cursor.createdAt();
+            } else {
+                cursor.intKey();
+            }
+            return cursor;
+        } catch (RuntimeException e) {
+            return first(expected);
+        }
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public LocalDateTime createdAt() {
+        return LocalDateTime.parse(key);
+    }
+
+    public int intKey() {
+        return Integer.parseInt(key);
+    }
+}
@@ -13,6 +13,9 @@ import com.edumoet.repository.AnswerRepository;
 import com.edumoet.repository.ImageAttachmentRepository;
 import com.edumoet.repository.QuestionRepository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
@@ -25,10 +28,21 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ImageService {
@@ -51,6 +65,37 @@ public class ImageService {
     @Autowired
     private S3Client s3Client;
 
+    // Concurrent S3 uploads for multi-image posts
+    @Value("${images.upload.threads:4}")
+    private int uploadThreads;
+
+    @Value("${images.upload.queue-size:64}")
+    private int uploadQueueSize;
+
+    @Value("${images.upload.timeout-ms:30000}")
+    private long uploadTimeoutMs;
+
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    public void initUploadExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Bounded pool + bounded queue; when both are full the request thread uploads itself
+        uploadExecutor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdownUploadExecutor() {
+        uploadExecutor.shutdown();
+    }
+
     // ================== SAVE IMAGE ==================
     public ImageAttachment saveImage(MultipartFile file, Long questionId, Long answerId, User uploadedBy) throws IOException {
         validateImage(file);
@@ -166,6 +211,165 @@ public class ImageService {
         return imageAttachmentRepository.save(image);
     }
 
+    // ================== BATCH UPLOAD ==================
+
+    /**
+     * Upload nhiều ảnh cho câu hỏi song song, lưu tất cả bản ghi trong 1 lần saveAll
+     * Lỗi ở bất kỳ ảnh nào → xóa các ảnh đã lên S3 và không lưu bản ghi nào
+     */
+    public List<ImageAttachment> saveQuestionImages(MultipartFile[] files, Question question) throws IOException {
+        List<PendingUpload> uploads = prepareUploads(files, "q" + question.getId());
+        for (PendingUpload upload : uploads) {
+            upload.attachment.setQuestion(question);
+            upload.attachment.setUploadedBy(question.getAuthor());
+        }
+        return uploadAndSave(uploads);
+    }
+
+    /**
+     * Upload nhiều ảnh cho câu trả lời (cùng pipeline với câu hỏi)
+     */
+    public List<ImageAttachment> saveAnswerImages(MultipartFile[] files, Answer answer) throws IOException {
+        List<PendingUpload> uploads = prepareUploads(files, "a" + answer.getId());
+        for (PendingUpload upload : uploads) {
+            upload.attachment.setAnswer(answer);
+            upload.attachment.setUploadedBy(answer.getAuthor());
+        }
+        return uploadAndSave(uploads);
+    }
+
+    private static final class PendingUpload {
+        private final String key;
+        private final String contentType;
+        private final byte[] bytes;
+        private final ImageAttachment attachment;
+
+        private PendingUpload(String key, String contentType, byte[] bytes, ImageAttachment attachment) {
+            this.key = key;
+            this.contentType = contentType;
+            this.bytes = bytes;
+            this.attachment = attachment;
+        }
+    }
+
+    /**
+     * Kiểm tra toàn bộ file trước khi upload file nào, và đọc bytes trên thread của request
+     */
+    private List<PendingUpload> prepareUploads(MultipartFile[] files, String typePrefix) throws IOException {
+        List<PendingUpload> uploads = new ArrayList<>();
+        if (files == null) {
+            return uploads;
+        }
+        for (MultipartFile file : files) {
+            if (file != null && !file.isEmpty()) {
+                validateImage(file);
+            }
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        for (MultipartFile file : files) {
+            if (file == null || file.isEmpty()) {
+                continue;
+            }
+            String originalFilename = file.getOriginalFilename();
+            String extension = (originalFilename != null && originalFilename.contains(".")) ?
+                    originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
+            String uuid = UUID.randomUUID().toString().substring(0, 8);
+            String filename = String.format("%s_%s_%s%s", typePrefix, timestamp, uuid, extension);
+
+            ImageAttachment attachment = new ImageAttachment();
+            attachment.setFileName(originalFilename);
+            attachment.setPath(filename);
+            attachment.setContentType(file.getContentType());
+            attachment.setCreatedAt(LocalDateTime.now());
+            uploads.add(new PendingUpload(baseFolder + "/" + filename, file.getContentType(), file.getBytes(), attachment));
+        }
+        return uploads;
+    }
+
+    private List<ImageAttachment> uploadAndSave(List<PendingUpload> uploads) throws IOException {
+        if (uploads.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Set when the batch fails: uploads not yet started are skipped
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (PendingUpload upload : uploads) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                if (aborted.get()) {
+                    throw new CancellationException("Upload batch aborted");
+                }
+                s3Client.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(upload.key)
+                                .contentType(upload.contentType)
+                                .build(),
+                        RequestBody.fromBytes(upload.bytes));
+            }, uploadExecutor));
+        }
+
+        // Wait for every upload (not just the first failure) so cleanup sees the final state
+        Throwable failure = null;
+        long deadline = System.currentTimeMillis() + uploadTimeoutMs;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (TimeoutException e) {
+                // Not cancelled: putObject can't be interrupted, deleteUploaded cleans up when it finishes
+                failure = failure != null ? failure : e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure != null ? failure : e;
+            }
+        }
+
+        if (failure != null) {
+            aborted.set(true);
+            deleteUploaded(uploads, futures);
+            String reason = failure instanceof S3Exception && ((S3Exception) failure).awsErrorDetails() != null
+                    ? ((S3Exception) failure).awsErrorDetails().errorMessage()
+                    : String.valueOf(failure.getMessage());
+            throw new IOException("Failed to upload image to S3: " + reason, failure);
+        }
+
+        List<ImageAttachment> attachments = new ArrayList<>();
+        for (PendingUpload upload : uploads) {
+            attachments.add(upload.attachment);
+        }
+        try {
+            return imageAttachmentRepository.saveAll(attachments);
+        } catch (RuntimeException e) {
+            deleteUploaded(uploads, futures);
+            throw e;
+        }
+    }
+
+    /**
+     * Xóa (best-effort) các object đã upload thành công khi cả lô thất bại,
+     * kể cả upload còn đang chạy (xóa ngay khi nó xong)
+     */
+    private void deleteUploaded(List<PendingUpload> uploads, List<CompletableFuture<Void>> futures) {
+        for (int i = 0; i < uploads.size(); i++) {
+            String key = uploads.get(i).key;
+            futures.get(i).whenComplete((result, error) -> {
+                if (error != null) {
+                    return;
+                }
+                try {
+                    s3Client.deleteObject(DeleteObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .build());
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ Failed to clean up uploaded image " + key + ": " + e.getMessage());
+                }
+            });
+        }
+    }
+
     // ================== DELETE IMAGE ==================
     public void deleteImage(ImageAttachment attachment) throws IOException {
         String key = baseFolder + "/" + attachment.getPath();
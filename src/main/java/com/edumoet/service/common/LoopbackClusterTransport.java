@@ -0,0 +1,87 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loopback Cluster Transport - Transport trong cùng JVM (cluster.transport=loopback, mặc định)
+ *
+ * - 1 node: mọi tin đều giao cục bộ, danh bạ session chỉ có node này
+ * - Test: nhiều ClusterMessenger (mỗi cái 1 nodeId) dùng chung 1 instance để giả lập cluster
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.transport", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackClusterTransport implements ClusterTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoopbackClusterTransport.class);
+
+    private final Map<String, Consumer<ClusterEnvelope>> handlers = new ConcurrentHashMap<>();
+
+    // username → (nodeId → số session)
+    private final Map<String, Map<String, AtomicInteger>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void subscribe(String nodeId, Consumer<ClusterEnvelope> handler) {
+        handlers.put(nodeId, handler);
+    }
+
+    @Override
+    public void unsubscribe(String nodeId) {
+        handlers.remove(nodeId);
+        sessions.values().forEach(nodes -> nodes.remove(nodeId));
+    }
+
+    @Override
+    public void publish(String targetNodeId, ClusterEnvelope envelope) {
+        if (targetNodeId != null) {
+            deliver(targetNodeId, handlers.get(targetNodeId), envelope);
+            return;
+        }
+        handlers.forEach((nodeId, handler) -> {
+            if (!nodeId.equals(envelope.getOriginNodeId())) {
+                deliver(nodeId, handler, envelope);
+            }
+        });
+    }
+
+    private void deliver(String nodeId, Consumer<ClusterEnvelope> handler, ClusterEnvelope envelope) {
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.accept(envelope);
+        } catch (RuntimeException e) {
+            logger.warn("Cluster delivery to node {} failed: {}", nodeId, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void sessionOpened(String nodeId, String username) {
+        sessions.computeIfAbsent(username, u -> new ConcurrentHashMap<>())
+                .computeIfAbsent(nodeId, n -> new AtomicInteger())
+                .incrementAndGet();
+    }
+
+    @Override
+    public synchronized void sessionClosed(String nodeId, String username) {
+        sessions.computeIfPresent(username, (u, nodes) -> {
+            nodes.computeIfPresent(nodeId, (n, count) -> count.decrementAndGet() > 0 ? count : null);
+            return nodes.isEmpty() ? null : nodes;
+        });
+    }
+
+    @Override
+    public Set<String> nodesFor(String username) {
+        Map<String, AtomicInteger> nodes = username != null ? sessions.get(username) : null;
+        return nodes != null ? Collections.unmodifiableSet(nodes.keySet()) : Collections.emptySet();
+    }
+}
@@ -1,8 +1,16 @@
 package com.edumoet.service.common;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,19 +18,105 @@ import com.edumoet.entity.Message;
 import com.edumoet.entity.User;
 import com.edumoet.repository.MessageRepository;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Message Service - Tin nhắn riêng
+ *
+ * Hộp thư đọc từ bảng conversations (1 dòng / cặp user: tin cuối, số chưa đọc mỗi bên),
+ * được cập nhật bằng SQL trong cùng transaction với gửi / đọc / xóa tin nhắn
  */
 @Service
 @Transactional
 public class MessageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final String TOUCH_CONVERSATION_SQL =
+            "MERGE conversations WITH (HOLDLOCK) AS t " +
+            "USING (SELECT :low AS user_low_id, :high AS user_high_id) AS s " +
+            "ON t.user_low_id = s.user_low_id AND t.user_high_id = s.user_high_id " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "    last_message_id = CASE WHEN :messageId > t.last_message_id THEN :messageId ELSE t.last_message_id END, " +
+            "    last_message_at = CASE WHEN :messageId > t.last_message_id THEN :at ELSE t.last_message_at END, " +
+            "    unread_low = t.unread_low + :unreadLow, " +
+            "    unread_high = t.unread_high + :unreadHigh " +
+            "WHEN NOT MATCHED THEN " +
+            "    INSERT (user_low_id, user_high_id, last_message_id, last_message_at, unread_low, unread_high) " +
+            "    VALUES (s.user_low_id, s.user_high_id, :messageId, :at, :unreadLow, :unreadHigh);";
+
+    private static final String DECREMENT_UNREAD_SQL =
+            "UPDATE conversations SET " +
+            "unread_low = CASE WHEN user_low_id = :receiverId AND unread_low > 0 THEN unread_low - 1 ELSE unread_low END, " +
+            "unread_high = CASE WHEN user_high_id = :receiverId AND user_low_id <> user_high_id AND unread_high > 0 " +
+            "                   THEN unread_high - 1 ELSE unread_high END " +
+            "WHERE user_low_id = :low AND user_high_id = :high";
+
+    // Tin cuối bị xóa: trỏ về tin mới nhất còn lại của cặp, không còn tin nào thì xóa hội thoại
+    private static final String REPOINT_LAST_SQL =
+            "UPDATE c SET c.last_message_id = m.id, c.last_message_at = m.created_at " +
+            "FROM conversations c " +
+            "CROSS APPLY (SELECT TOP 1 id, created_at FROM messages " +
+            "             WHERE (sender_id = :low AND receiver_id = :high) OR (sender_id = :high AND receiver_id = :low) " +
+            "             ORDER BY id DESC) m " +
+            "WHERE c.user_low_id = :low AND c.user_high_id = :high AND c.last_message_id = :messageId";
+
+    private static final String DROP_EMPTY_SQL =
+            "DELETE FROM conversations WHERE user_low_id = :low AND user_high_id = :high AND last_message_id = :messageId";
+
+    private static final String INBOX_SQL =
+            "SELECT TOP (:limit) c.partner_id, u.username, u.profile_image, c.last_message_id, c.last_message_at, " +
+            "       m.body, c.unread " +
+            "FROM (SELECT user_high_id AS partner_id, last_message_id, last_message_at, unread_low AS unread " +
+            "      FROM conversations WHERE user_low_id = :userId AND last_message_id < :before " +
+            "      UNION ALL " +
+            "      SELECT user_low_id, last_message_id, last_message_at, unread_high " +
+            "      FROM conversations WHERE user_high_id = :userId AND user_low_id <> user_high_id " +
+            "      AND last_message_id < :before) c " +
+            "JOIN users u ON u.id = c.partner_id " +
+            "LEFT JOIN messages m ON m.id = c.last_message_id " +
+            "ORDER BY c.last_message_id DESC";
+
+    // Dựng lại hội thoại từ bảng messages (dữ liệu có trước khi có bảng conversations).
+    // Dòng đã có (sendMessage tạo trước khi backfill chạy) được ghi đè bằng số tính lại từ toàn bộ tin nhắn của cặp,
+    // nên chạy lại không cộng trùng. TABLOCK + HOLDLOCK trên messages: gửi / đọc / xóa tin đang chạy xong trước,
+    // tin mới chờ đến khi câu lệnh xong; HOLDLOCK trên conversations tránh trùng uk_conversations_pair
+    private static final String BACKFILL_SQL =
+            "MERGE conversations WITH (HOLDLOCK) AS t " +
+            "USING (SELECT p.lo, p.hi, MAX(p.id) AS last_id, MAX(p.created_at) AS last_at, " +
+            "              SUM(CASE WHEN p.receiver_id = p.lo AND p.is_read = 0 THEN 1 ELSE 0 END) AS unread_low, " +
+            "              SUM(CASE WHEN p.receiver_id = p.hi AND p.lo <> p.hi AND p.is_read = 0 THEN 1 ELSE 0 END) AS unread_high " +
+            "       FROM (SELECT id, created_at, receiver_id, is_read, " +
+            "                    CASE WHEN sender_id < receiver_id THEN sender_id ELSE receiver_id END AS lo, " +
+            "                    CASE WHEN sender_id < receiver_id THEN receiver_id ELSE sender_id END AS hi " +
+            "             FROM messages WITH (TABLOCK, HOLDLOCK)) p " +
+            "       GROUP BY p.lo, p.hi) AS s " +
+            "ON t.user_low_id = s.lo AND t.user_high_id = s.hi " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "    last_message_id = s.last_id, last_message_at = s.last_at, " +
+            "    unread_low = s.unread_low, unread_high = s.unread_high " +
+            "WHEN NOT MATCHED THEN " +
+            "    INSERT (user_low_id, user_high_id, last_message_id, last_message_at, unread_low, unread_high) " +
+            "    VALUES (s.lo, s.hi, s.last_id, s.last_at, s.unread_low, s.unread_high);";
+
     @Autowired
     private MessageRepository messageRepository;
 
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Value("${messages.backfill-conversations:false}")
+    private boolean backfillConversations;
+
     /**
      * Gửi tin nhắn
      */
@@ -35,7 +129,15 @@ public class MessageService {
         message.setIsRead(false);
         message.setCreatedAt(LocalDateTime.now());
         
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        MapSqlParameterSource params = pair(sender.getId(), receiver.getId())
+                .addValue("messageId", saved.getId())
+                .addValue("at", Timestamp.valueOf(saved.getCreatedAt()));
+        boolean receiverIsLow = receiver.getId() <= sender.getId();
+        params.addValue("unreadLow", receiverIsLow ? 1 : 0).addValue("unreadHigh", receiverIsLow ? 0 : 1);
+        jdbc.update(TOUCH_CONVERSATION_SQL, params);
+        unreadCounterService.messagesChanged(receiver.getUsername(), 1);
+        return saved;
     }
 
     /**
@@ -65,15 +167,30 @@ public class MessageService {
     public void markAsRead(Long messageId) {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("Message not found"));
-        message.setIsRead(true);
-        messageRepository.save(message);
+        if (!Boolean.TRUE.equals(message.getIsRead())) {
+            message.setIsRead(true);
+            messageRepository.save(message);
+            decrementUnread(message);
+            unreadCounterService.messagesChanged(message.getReceiver().getUsername(), -1);
+        }
     }
 
     /**
      * Xóa tin nhắn
      */
     public void deleteMessage(Long messageId) {
-        messageRepository.deleteById(messageId);
+        messageRepository.findById(messageId).ifPresent(message -> {
+            if (!Boolean.TRUE.equals(message.getIsRead())) {
+                decrementUnread(message);
+                unreadCounterService.messagesChanged(message.getReceiver().getUsername(), -1);
+            }
+            MapSqlParameterSource params = pair(message.getSender().getId(), message.getReceiver().getId())
+                    .addValue("messageId", message.getId());
+            messageRepository.delete(message);
+            messageRepository.flush();
+            jdbc.update(REPOINT_LAST_SQL, params);
+            jdbc.update(DROP_EMPTY_SQL, params);
+        });
     }
 
     /**
@@ -85,75 +202,143 @@ public class MessageService {
     }
 
     /**
-     * Đếm tin nhắn chưa đọc
+     * Đếm tin nhắn chưa đọc (bộ đếm trong bộ nhớ, xem UnreadCounterService)
      */
     public long countUnread(User user) {
-        return messageRepository.countByReceiverAndIsReadFalse(user);
+        return unreadCounterService.getMessages(user.getUsername());
     }
     
     // ================== CONVERSATION FEATURES ==================
     
     /**
-     * DTO for conversation summary
+     * 1 dòng hộp thư: người cùng hội thoại, tin cuối và số tin chưa đọc của user hiện tại
      */
     public static class ConversationSummary {
-        private User partner;
-        private Message lastMessage;
-        private long unreadCount;
+        private final Long partnerId;
+        private final String partnerUsername;
+        private final String partnerProfileImage;
+        private final Long lastMessageId;
+        private final String lastMessage;
+        private final LocalDateTime lastTimestamp;
+        private final long unreadCount;
         
-        public ConversationSummary(User partner, Message lastMessage, long unreadCount) {
-            this.partner = partner;
+        public ConversationSummary(Long partnerId, String partnerUsername, String partnerProfileImage,
+                                   Long lastMessageId, String lastMessage, LocalDateTime lastTimestamp, long unreadCount) {
+            this.partnerId = partnerId;
+            this.partnerUsername = partnerUsername;
+            this.partnerProfileImage = partnerProfileImage;
+            this.lastMessageId = lastMessageId;
             this.lastMessage = lastMessage;
+            this.lastTimestamp = lastTimestamp;
             this.unreadCount = unreadCount;
         }
         
-        public User getPartner() {
-            return partner;
+        public Long getPartnerId() {
+            return partnerId;
         }
         
-        public Message getLastMessage() {
-            return lastMessage;
+        public String getPartnerUsername() {
+            return partnerUsername;
         }
         
-        public long getUnreadCount() {
-            return unreadCount;
+        public String getPartnerProfileImage() {
+            return partnerProfileImage;
+        }
+        
+        public Long getLastMessageId() {
+            return lastMessageId;
+        }
+        
+        public String getLastMessage() {
+            return lastMessage;
         }
         
         public LocalDateTime getLastTimestamp() {
-            return lastMessage != null ? lastMessage.getCreatedAt() : null;
+            return lastTimestamp;
+        }
+        
+        public long getUnreadCount() {
+            return unreadCount;
         }
     }
     
     /**
-     * Get messages between two users (for conversation view)
+     * Lịch sử hội thoại, luôn theo thứ tự cũ → mới.
+     * - after != null: các tin mới hơn after; nextCursor = id tin mới nhất trả về nếu còn tin mới hơn
+     * - ngược lại: trang tin cũ hơn before (null → trang mới nhất); nextCursor = id tin cũ nhất nếu còn tin cũ hơn
      */
-    public List<Message> getConversationMessages(User user1, User user2) {
-        return messageRepository.findConversationMessages(user1, user2, user2, user1);
+    @Transactional(readOnly = true)
+    public CursorPage<Message> getConversationHistory(User currentUser, User partner, Long before, Long after, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PageRequest page = PageRequest.of(0, limit + 1);
+        if (after != null) {
+            List<Message> rows = new ArrayList<>(messageRepository.findConversationAfter(currentUser, partner, after, page));
+            String next = null;
+            if (rows.size() > limit) {
+                rows = new ArrayList<>(rows.subList(0, limit));
+                next = String.valueOf(rows.get(limit - 1).getId());
+            }
+            return new CursorPage<>(rows, next);
+        }
+        List<Message> rows = new ArrayList<>(messageRepository.findConversationBefore(currentUser, partner,
+                before != null ? before : Long.MAX_VALUE, page));
+        String next = null;
+        if (rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            next = String.valueOf(rows.get(limit - 1).getId());
+        }
+        Collections.reverse(rows);
+        return new CursorPage<>(rows, next);
     }
     
     /**
-     * Get conversation summaries for a user
+     * 1 trang hộp thư, hội thoại có tin mới nhất trước; before = id tin cuối của dòng cuối trang trước (null → trang đầu)
      */
-    public List<ConversationSummary> getConversationSummaries(User currentUser) {
-        // Get all messages where user is sender or receiver
-        List<Message> allMessages = messageRepository.findBySenderOrReceiverOrderByCreatedAtDesc(
-            currentUser, currentUser);
-        
-        // Group by conversation partner and get latest message
-        java.util.Map<Long, ConversationSummary> conversations = new java.util.LinkedHashMap<>();
-        
-        for (Message msg : allMessages) {
-            User partner = msg.getSender().equals(currentUser) ? msg.getReceiver() : msg.getSender();
-            Long partnerId = partner.getId();
-            
-            if (!conversations.containsKey(partnerId)) {
-                // Count unread from this partner
-                long unreadCount = messageRepository.countBySenderAndReceiverAndIsReadFalse(partner, currentUser);
-                conversations.put(partnerId, new ConversationSummary(partner, msg, unreadCount));
-            }
+    @Transactional(readOnly = true)
+    public CursorPage<ConversationSummary> getConversations(User currentUser, Long before, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit + 1)
+                .addValue("userId", currentUser.getId())
+                .addValue("before", before != null ? before : Long.MAX_VALUE);
+        List<ConversationSummary> rows = new ArrayList<>(jdbc.query(INBOX_SQL, params, (rs, i) -> {
+            Timestamp at = rs.getTimestamp("last_message_at");
+            return new ConversationSummary(rs.getLong("partner_id"), rs.getString("username"),
+                    rs.getString("profile_image"), rs.getLong("last_message_id"), rs.getString("body"),
+                    at != null ? at.toLocalDateTime() : null, rs.getLong("unread"));
+        }));
+        String next = null;
+        if (rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            next = String.valueOf(rows.get(limit - 1).getLastMessageId());
         }
-        
-        return new java.util.ArrayList<>(conversations.values());
+        return new CursorPage<>(rows, next);
     }
-}
 
+    /**
+     * Migration 1 lần: chỉ chạy khi bật messages.backfill-conversations (bật cho lần deploy đầu có bảng conversations,
+     * sau đó tắt đi; chạy lại vẫn đúng nhưng phải quét toàn bộ messages)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillConversations() {
+        if (!backfillConversations) {
+            return;
+        }
+        try {
+            int rows = jdbc.update(BACKFILL_SQL, new MapSqlParameterSource());
+            logger.info("Backfilled {} conversation(s) from messages; messages.backfill-conversations can be turned off",
+                    rows);
+        } catch (RuntimeException e) {
+            logger.error("Conversation backfill failed", e);
+        }
+    }
+
+    private void decrementUnread(Message message) {
+        jdbc.update(DECREMENT_UNREAD_SQL, pair(message.getSender().getId(), message.getReceiver().getId())
+                .addValue("receiverId", message.getReceiver().getId()));
+    }
+
+    // Khóa của hội thoại: id nhỏ hơn / lớn hơn của cặp user
+    private static MapSqlParameterSource pair(Long userA, Long userB) {
+        return new MapSqlParameterSource("low", Math.min(userA, userB)).addValue("high", Math.max(userA, userB));
+    }
+}
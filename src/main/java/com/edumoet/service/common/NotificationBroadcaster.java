@@ -0,0 +1,266 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notification Broadcaster - Gửi thông báo hàng loạt (tất cả user / theo role) ngoài request thread
+ *
+ * - Duyệt id user theo từng khúc (keyset trên users.id), không nạp entity User
+ * - Mỗi khúc: 1 lô INSERT (JDBC batch) trong 1 transaction ngắn
+ * - Chỉ đẩy WebSocket cho user đang kết nối ở bất kỳ node nào, qua NotificationDelivery (frame gọn, gom theo user)
+ * - Tiến độ của các job gần đây xem được qua getJob / getRecentJobs
+ */
+@Service
+public class NotificationBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationBroadcaster.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (user_id, type, message, link, is_read, is_global, sender_id, created_at) " +
+            "VALUES (?, ?, ?, ?, 0, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NotificationDelivery notificationDelivery;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Value("${notifications.broadcast.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${notifications.broadcast.queue-size:16}")
+    private int queueSize;
+
+    @Value("${notifications.broadcast.history:20}")
+    private int history;
+
+    private ExecutorService executor;
+
+    private final AtomicLong jobIds = new AtomicLong();
+
+    // Các job gần đây theo thứ tự gửi (cũ nhất bị bỏ khi vượt history)
+    private final Map<Long, BroadcastJob> jobs = new LinkedHashMap<>();
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * 1 lần gửi hàng loạt và tiến độ của nó
+     */
+    public static class BroadcastJob {
+        private final Long id;
+        private final String role;
+        private final String type;
+        private final String message;
+        private final String link;
+        private final Long senderId;
+        private final long total;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger pushed = new AtomicInteger();
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        BroadcastJob(Long id, String role, String type, String message, String link, Long senderId, long total) {
+            this.id = id;
+            this.role = role;
+            this.type = type;
+            this.message = message;
+            this.link = link;
+            this.senderId = senderId;
+            this.total = total;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        /**
+         * Role nhận thông báo (null = tất cả user)
+         */
+        public String getRole() {
+            return role;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public int getSent() {
+            return sent.get();
+        }
+
+        /**
+         * Số user đang online đã được đẩy WebSocket
+         */
+        public int getPushed() {
+            return pushed.get();
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    @PostConstruct
+    public void initExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 1 luồng: các broadcast chạy lần lượt, không tranh nhau ghi bảng notifications
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-broadcast-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        executor.shutdown();
+    }
+
+    /**
+     * Xếp hàng 1 broadcast; role = null → tất cả user. Trả về ngay, job chạy nền
+     */
+    public BroadcastJob submit(String role, String type, String message, String link, Long senderId) {
+        long total = role != null
+                ? jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE role = :role",
+                        new MapSqlParameterSource("role", role), Long.class)
+                : jdbc.queryForObject("SELECT COUNT(*) FROM users", new MapSqlParameterSource(), Long.class);
+        BroadcastJob job = new BroadcastJob(jobIds.incrementAndGet(), role, type, message, link, senderId, total);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            while (jobs.size() > history) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.status = Status.FAILED;
+            job.error = "Hàng đợi gửi thông báo đang đầy";
+            throw new RuntimeException("Hàng đợi gửi thông báo đang đầy, vui lòng thử lại sau");
+        }
+        return job;
+    }
+
+    public BroadcastJob getJob(Long id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    public List<BroadcastJob> getRecentJobs() {
+        synchronized (jobs) {
+            List<BroadcastJob> recent = new ArrayList<>(jobs.values());
+            Collections.reverse(recent);
+            return recent;
+        }
+    }
+
+    private void run(BroadcastJob job) {
+        job.status = Status.RUNNING;
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            long after = 0;
+            while (true) {
+                List<Long> ids = new ArrayList<>();
+                List<String> usernames = new ArrayList<>();
+                MapSqlParameterSource params = new MapSqlParameterSource("size", chunkSize).addValue("after", after);
+                String sql = "SELECT TOP (:size) id, username FROM users WHERE id > :after";
+                if (job.role != null) {
+                    sql += " AND role = :role";
+                    params.addValue("role", job.role);
+                }
+                jdbc.query(sql + " ORDER BY id", params, rs -> {
+                    ids.add(rs.getLong("id"));
+                    usernames.add(rs.getString("username"));
+                });
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> batch = new ArrayList<>(ids.size());
+                for (Long userId : ids) {
+                    batch.add(new Object[] { userId, job.type, job.message, job.link, job.role == null, job.senderId, now });
+                }
+                tx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch));
+                job.sent.addAndGet(ids.size());
+                unreadCounterService.notificationsAdded(usernames);
+
+                for (String username : usernames) {
+                    if (notificationDelivery.enqueue(username, job.type, null, job.message, job.link)) {
+                        job.pushed.incrementAndGet();
+                    }
+                }
+                after = ids.get(ids.size() - 1);
+            }
+            job.status = Status.DONE;
+            logger.info("Broadcast #{} delivered to {} users ({} online)", job.id, job.getSent(), job.getPushed());
+        } catch (RuntimeException e) {
+            job.status = Status.FAILED;
+            job.error = e.getMessage();
+            logger.error("Broadcast #{} failed after {} users", job.id, job.getSent(), e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+}
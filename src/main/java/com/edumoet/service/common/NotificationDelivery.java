@@ -0,0 +1,209 @@
+package com.edumoet.service.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notification Delivery - Đẩy thông báo real-time theo frame nhỏ, gom theo user trong 1 khung thời gian ngắn
+ *
+ * - Frame chỉ gồm type, title, message, link, count (không gửi entity Notification / User)
+ * - Các sự kiện cùng loại + cùng đích (link hoặc title) trong window-ms gộp thành 1 frame: "5 câu trả lời mới — X"
+ * - Mỗi user giữ tối đa max-pending-per-user frame chờ; vượt quá thì gộp vào 1 frame "N thông báo mới"
+ * - User offline (PresenceService) bị bỏ qua ngay, không tốn công gom / gửi (thông báo vẫn nằm trong DB)
+ * - Gọi trong transaction thì chỉ xếp hàng sau khi commit
+ */
+@Service
+public class NotificationDelivery {
+
+    private static final String DESTINATION = "/queue/notifications";
+
+    private static final String OVERFLOW_KEY = "*";
+
+    @Autowired
+    private ClusterMessenger clusterMessenger;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Value("${notifications.delivery.window-ms:500}")
+    private long windowMs;
+
+    @Value("${notifications.delivery.max-pending-per-user:20}")
+    private int maxPendingPerUser;
+
+    private ScheduledExecutorService flusher;
+
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+
+    // Frame đã giao cho broker (buffer của session có thể còn bỏ bớt)
+    private final AtomicLong framesFlushed = new AtomicLong();
+    private final AtomicLong eventsMerged = new AtomicLong();
+
+    /**
+     * Frame gửi cho client qua /user/queue/notifications
+     */
+    public static class Frame {
+        private final String type;
+        private final String title;
+        private String message;
+        private final String link;
+        private int count = 1;
+        private String createdAt;
+
+        Frame(String type, String title, String message, String link) {
+            this.type = type;
+            this.title = title;
+            this.message = message;
+            this.link = link;
+            this.createdAt = LocalDateTime.now().toString();
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public String getLink() {
+            return link;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public String getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    // Các frame đang chờ của 1 user, theo thứ tự đến; chỉ sửa bên trong ConcurrentHashMap.compute
+    private static class Pending {
+        final Map<String, Frame> frames = new LinkedHashMap<>();
+    }
+
+    @PostConstruct
+    public void initFlusher() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-delivery-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdownFlusher() {
+        flusher.shutdown();
+    }
+
+    /**
+     * Xếp 1 thông báo vào hàng chờ của user; false nếu user không online (không cần đẩy)
+     */
+    public boolean enqueue(String username, String type, String title, String message, String link) {
+        if (!presenceService.isOnline(username)) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(username, type, title, message, link);
+                }
+            });
+        } else {
+            add(username, type, title, message, link);
+        }
+        return true;
+    }
+
+    private void add(String username, String type, String title, String message, String link) {
+        String key = type + "|" + (link != null ? link : title != null ? title : message);
+        boolean[] created = new boolean[1];
+        pending.compute(username, (u, p) -> {
+            if (p == null) {
+                p = new Pending();
+                created[0] = true;
+            }
+            Frame frame = p.frames.get(key);
+            if (frame == null && p.frames.size() >= maxPendingPerUser) {
+                frame = p.frames.computeIfAbsent(OVERFLOW_KEY, k -> {
+                    Frame overflow = new Frame("SYSTEM", null, null, "/notifications");
+                    overflow.count = 0;
+                    return overflow;
+                });
+                frame.count++;
+                frame.message = frame.count + " thông báo mới";
+                eventsMerged.incrementAndGet();
+            } else if (frame == null) {
+                p.frames.put(key, new Frame(type, title, message, link));
+            } else {
+                frame.count++;
+                frame.message = summary(frame.type, frame.count, frame.title, message);
+                frame.createdAt = LocalDateTime.now().toString();
+                eventsMerged.incrementAndGet();
+            }
+            return p;
+        });
+        if (created[0]) {
+            flusher.schedule(() -> flush(username), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(String username) {
+        Pending p = pending.remove(username);
+        if (p == null) {
+            return;
+        }
+        // Client chậm: buffer riêng của session (WebSocketConfig) bỏ frame cũ, thông báo vẫn có trong DB
+        for (Frame frame : p.frames.values()) {
+            clusterMessenger.sendToUser(username, DESTINATION, frame);
+            framesFlushed.incrementAndGet();
+        }
+    }
+
+    private static String summary(String type, int count, String title, String latest) {
+        String label;
+        switch (type != null ? type : "") {
+            case "ANSWER": label = "câu trả lời mới"; break;
+            case "COMMENT": label = "bình luận mới"; break;
+            case "VOTE": label = "lượt vote mới"; break;
+            case "MESSAGE": label = "tin nhắn mới"; break;
+            default: label = "thông báo mới";
+        }
+        return count + " " + label + (title != null ? " — " + title : ": " + latest);
+    }
+
+    /**
+     * Số liệu cho trang admin
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pendingUsers", pending.size());
+        metrics.put("framesFlushed", framesFlushed.get());
+        metrics.put("eventsMerged", eventsMerged.get());
+        metrics.put("windowMs", windowMs);
+        return metrics;
+    }
+}
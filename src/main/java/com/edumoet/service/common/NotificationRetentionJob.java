@@ -0,0 +1,101 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Notification Retention Job - Dọn thông báo đã đọc quá hạn để bảng notifications không phình mãi
+ *
+ * - "Đã đọc" = is_read hoặc nằm dưới mốc đã đọc của user (notification_read_state)
+ * - Xóa theo từng khúc DELETE TOP (n), mỗi câu là 1 transaction ngắn (không khóa bảng lâu)
+ * - notifications.retention.archive=true → chuyển sang notifications_archive (OUTPUT INTO) thay vì xóa hẳn
+ * - Thông báo chưa đọc không bao giờ bị dọn, nên bộ đếm chưa đọc không đổi
+ */
+@Service
+public class NotificationRetentionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionJob.class);
+
+    private static final String ARCHIVE_OUTPUT =
+            "OUTPUT deleted.id, deleted.user_id, deleted.type, deleted.message, deleted.link, deleted.sender_id, " +
+            "deleted.created_at, deleted.read_at, :now " +
+            "INTO notifications_archive (id, user_id, type, message, link, sender_id, created_at, read_at, archived_at) ";
+
+    private static final String FROM_EXPIRED =
+            "FROM notifications n " +
+            "LEFT JOIN notification_read_state w ON w.user_id = n.user_id " +
+            "WHERE n.created_at < :cutoff AND (n.is_read = 1 OR n.id <= w.last_read_id)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Value("${notifications.retention.read-days:90}")
+    private int readDays;
+
+    @Value("${notifications.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${notifications.retention.archive:false}")
+    private boolean archive;
+
+    private volatile Map<String, Object> lastRun = new LinkedHashMap<>();
+
+    @Scheduled(cron = "${notifications.retention-cron:0 15 4 * * *}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            logger.error("Notification retention job failed", e);
+        }
+    }
+
+    /**
+     * Dọn thông báo đã đọc cũ hơn readDays ngày; trả về số dòng đã xóa / lưu trữ
+     */
+    public synchronized int purge() {
+        LocalDateTime started = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", chunkSize)
+                .addValue("cutoff", Timestamp.valueOf(started.minusDays(readDays)))
+                .addValue("now", Timestamp.valueOf(started));
+        String sql = "DELETE TOP (:limit) n " + (archive ? ARCHIVE_OUTPUT : "") + FROM_EXPIRED;
+
+        int total = 0;
+        int chunks = 0;
+        int removed;
+        do {
+            removed = jdbc.update(sql, params);
+            total += removed;
+            chunks++;
+        } while (removed >= chunkSize);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", started);
+        run.put("finishedAt", LocalDateTime.now());
+        run.put("removed", total);
+        run.put("chunks", chunks);
+        run.put("archived", archive);
+        run.put("readDays", readDays);
+        lastRun = run;
+        logger.info("Notification retention {} {} read notifications older than {} days",
+                archive ? "archived" : "deleted", total, readDays);
+        return total;
+    }
+
+    /**
+     * Kết quả lần chạy gần nhất (cho trang admin)
+     */
+    public Map<String, Object> getLastRun() {
+        return lastRun;
+    }
+}
@@ -2,7 +2,10 @@ package com.edumoet.service.common;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,19 +14,56 @@ import com.edumoet.entity.User;
 import com.edumoet.repository.NotificationRepository;
 import com.edumoet.repository.UserRepository;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Notification Service - Thông báo của người dùng
+ *
+ * Trạng thái đã đọc = mốc last_read_id của user (NotificationReadState) + cờ is_read riêng cho id trên mốc:
+ * "đánh dấu tất cả đã đọc" chỉ dời mốc (1 câu MERGE), không sửa từng dòng.
+ */
 @Service
 @Transactional
 public class NotificationService {
 
+    private static final String ADVANCE_WATERMARK_SQL =
+            "MERGE notification_read_state WITH (HOLDLOCK) AS t " +
+            "USING (SELECT :userId AS user_id, " +
+            "       (SELECT MAX(id) FROM notifications WHERE user_id = :userId AND id <= :upTo) AS last_id) AS s " +
+            "ON t.user_id = s.user_id " +
+            "WHEN MATCHED AND s.last_id > t.last_read_id THEN " +
+            "    UPDATE SET last_read_id = s.last_id, updated_at = :now " +
+            "WHEN NOT MATCHED AND s.last_id IS NOT NULL THEN " +
+            "    INSERT (user_id, last_read_id, updated_at) VALUES (s.user_id, s.last_id, :now);";
+
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationBroadcaster notificationBroadcaster;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private NotificationDelivery notificationDelivery;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
     /**
      * Gửi thông báo đến 1 người dùng
      */
@@ -34,68 +74,71 @@ public class NotificationService {
         notification.setType(type);
         notification.setIsRead(false);
         notification.setCreatedAt(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        Notification saved = notificationRepository.save(notification);
+        unreadCounterService.notificationsChanged(user.getUsername(), 1);
+        // Chỉ đẩy real-time khi user đang online
+        notificationDelivery.enqueue(user.getUsername(), type, null, message, null);
+        return saved;
     }
 
     /**
-     * Gửi thông báo đến TẤT CẢ người dùng
+     * Gửi thông báo đến TẤT CẢ người dùng (chạy nền theo lô, xem NotificationBroadcaster)
      */
-    public int broadcastToAll(String message, String type) {
-        List<User> allUsers = userRepository.findAll();
-        int count = 0;
-        for (User user : allUsers) {
-            sendToUser(user, message, type);
-            count++;
-        }
-        return count;
+    public NotificationBroadcaster.BroadcastJob broadcastToAll(String message, String type) {
+        return notificationBroadcaster.submit(null, type, message, null, null);
     }
 
     /**
-     * Gửi thông báo đến người dùng theo role
+     * Gửi thông báo đến người dùng theo role (chạy nền theo lô)
      */
-    public int broadcastToRole(String role, String message, String type) {
-        List<User> users = userRepository.findByRole(role);
-        int count = 0;
-        for (User user : users) {
-            sendToUser(user, message, type);
-            count++;
-        }
-        return count;
+    public NotificationBroadcaster.BroadcastJob broadcastToRole(String role, String message, String type) {
+        return notificationBroadcaster.submit(role, type, message, null, null);
     }
 
     /**
-     * Lấy thông báo của 1 user
+     * 1 trang hộp thư của user, mới nhất trước; before = id thông báo cuối trang trước (null → trang đầu)
      */
-    public List<Notification> getNotificationsByUser(User user) {
-        return notificationRepository.findByUserOrderByCreatedAtDesc(user);
+    public CursorPage<Notification> getInbox(User user, Long before, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<Notification> rows = new ArrayList<>(notificationRepository.findInboxPage(user,
+                before != null ? before : Long.MAX_VALUE, PageRequest.of(0, limit + 1)));
+        String next = null;
+        if (rows.size() > limit) {
+            rows = new ArrayList<>(rows.subList(0, limit));
+            next = String.valueOf(rows.get(limit - 1).getId());
+        }
+        return new CursorPage<>(applyReadState(rows), next);
     }
 
     /**
-     * Lấy thông báo chưa đọc
+     * Lấy thông báo chưa đọc (trên mốc đã đọc, chưa được đánh dấu riêng)
      */
     public List<Notification> getUnreadNotifications(User user) {
-        return notificationRepository.findByUserAndIsReadFalseOrderByCreatedAtDesc(user);
+        return notificationRepository.findUnread(user, lastReadId(user.getId()));
     }
 
     /**
-     * Đánh dấu đã đọc
+     * Đánh dấu đã đọc (thông báo dưới mốc đã đọc thì không cần ghi gì)
      */
     public void markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        if (!isRead(notification)) {
+            notification.setIsRead(true);
+            notificationRepository.save(notification);
+            unreadCounterService.notificationsChanged(notification.getUser().getUsername(), -1);
+        }
     }
 
     /**
-     * Đánh dấu tất cả đã đọc
+     * Đánh dấu tất cả đã đọc: dời mốc đã đọc lên upTo = id lớn nhất user đã thấy trên trang (1 câu lệnh).
+     * Không dùng MAX(id) lúc ghi: thông báo đến sau khi trang được tải (hoặc id thấp hơn chưa commit) vẫn chưa đọc
      */
-    public void markAllAsRead(User user) {
-        List<Notification> unread = getUnreadNotifications(user);
-        for (Notification n : unread) {
-            n.setIsRead(true);
-            notificationRepository.save(n);
-        }
+    public void markAllAsRead(User user, long upTo) {
+        jdbc.update(ADVANCE_WATERMARK_SQL, new MapSqlParameterSource("userId", user.getId())
+                .addValue("upTo", upTo)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+        unreadCounterService.notificationsCleared(user.getUsername());
     }
 
     /**
@@ -110,14 +153,21 @@ public class NotificationService {
      * Xóa thông báo
      */
     public void deleteNotification(Long id) {
-        notificationRepository.deleteById(id);
+        notificationRepository.findById(id).ifPresent(notification -> {
+            if (!isRead(notification)) {
+                unreadCounterService.notificationsChanged(notification.getUser().getUsername(), -1);
+            }
+            notificationRepository.delete(notification);
+        });
     }
 
     /**
      * Admin: Lấy tất cả thông báo
      */
     public Page<Notification> getAllNotifications(Pageable pageable) {
-        return notificationRepository.findAll(pageable);
+        Page<Notification> page = notificationRepository.findAll(pageable);
+        applyReadState(page.getContent());
+        return page;
     }
 
     /**
@@ -128,59 +178,26 @@ public class NotificationService {
     }
 
     public long countUnread() {
-        return notificationRepository.countByIsReadFalse();
+        return notificationRepository.countUnread();
     }
     
     /**
      * Manager: Gửi thông báo theo role (USER, MANAGER, ADMIN)
      */
-    public int notifyByRole(String role, String type, String message, String link, Long senderId) {
-        User sender = userRepository.findById(senderId)
-                .orElseThrow(() -> new RuntimeException("Sender not found"));
-        
-        // Get all users with specific role
-        List<User> users = userRepository.findByRole(role);
-        
-        for (User user : users) {
-            Notification notification = new Notification();
-            notification.setUser(user);
-            notification.setSender(sender);
-            notification.setType(type);
-            notification.setMessage(message);
-            notification.setLink(link);
-            notification.setIsRead(false);
-            notificationRepository.save(notification);
+    public NotificationBroadcaster.BroadcastJob notifyByRole(String role, String type, String message, String link, Long senderId) {
+        if (!userRepository.existsById(senderId)) {
+            throw new RuntimeException("Sender not found");
         }
-        
-        return users.size();
+        return notificationBroadcaster.submit(role, type, message, link, senderId);
     }
     
     // ================== MANAGER FEATURES ==================
     
-    /**
-     * Get user notifications by userId
-     */
-    public List<Notification> getUserNotifications(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return getNotificationsByUser(user);
-    }
-    
     /**
      * Notify all users - manager version
      */
-    public void notifyAllUsers(String type, String message, String link, Long senderId) {
-        List<User> allUsers = userRepository.findAll();
-        for (User user : allUsers) {
-            Notification notification = new Notification();
-            notification.setUser(user);
-            notification.setMessage(message);
-            notification.setType(type);
-            notification.setLink(link);
-            notification.setIsRead(false);
-            notification.setCreatedAt(LocalDateTime.now());
-            notificationRepository.save(notification);
-        }
+    public NotificationBroadcaster.BroadcastJob notifyAllUsers(String type, String message, String link, Long senderId) {
+        return notificationBroadcaster.submit(null, type, message, link, senderId);
     }
     
     /**
@@ -197,6 +214,42 @@ public class NotificationService {
         notification.setIsRead(false);
         notification.setCreatedAt(LocalDateTime.now());
         notificationRepository.save(notification);
+        unreadCounterService.notificationsChanged(user.getUsername(), 1);
+        notificationDelivery.enqueue(user.getUsername(), type, null, message, link);
     }
-}
 
+    // ================== READ STATE ==================
+
+    private long lastReadId(Long userId) {
+        List<Long> ids = jdbc.queryForList("SELECT last_read_id FROM notification_read_state WHERE user_id = :userId",
+                new MapSqlParameterSource("userId", userId), Long.class);
+        return ids.isEmpty() ? 0L : ids.get(0);
+    }
+
+    private boolean isRead(Notification notification) {
+        return Boolean.TRUE.equals(notification.getIsRead())
+                || notification.getId() <= lastReadId(notification.getUser().getId());
+    }
+
+    /**
+     * Gán cờ readByWatermark cho danh sách thông báo (1 query lấy mốc của mọi user trong danh sách)
+     */
+    private <C extends Collection<Notification>> C applyReadState(C notifications) {
+        Set<Long> userIds = new HashSet<>();
+        notifications.forEach(n -> userIds.add(n.getUser().getId()));
+        if (userIds.isEmpty()) {
+            return notifications;
+        }
+        Map<Long, Long> marks = new HashMap<>();
+        jdbc.query("SELECT user_id, last_read_id FROM notification_read_state WHERE user_id IN (:ids)",
+                new MapSqlParameterSource("ids", userIds),
+                rs -> {
+                    marks.put(rs.getLong("user_id"), rs.getLong("last_read_id"));
+                });
+        for (Notification n : notifications) {
+            Long mark = marks.get(n.getUser().getId());
+            n.setReadByWatermark(mark != null && n.getId() <= mark);
+        }
+        return notifications;
+    }
+}
@@ -0,0 +1,153 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Presence Service - Ai đang online (có session STOMP), để bỏ qua việc đẩy real-time cho user offline
+ *
+ * - Nguồn: SessionConnectedEvent / SessionDisconnectEvent, và mọi frame client gửi lên (kể cả heartbeat)
+ *   qua interceptor của clientInboundChannel (WebSocketConfig) → touch(sessionId, username)
+ * - Session im lặng quá stale-ms (mất kết nối mà không có DISCONNECT) bị coi như đã đóng;
+ *   nếu sau đó nó lại gửi frame thì được ghi nhận lại
+ * - isOnline: tra map của node này trước, sau đó danh bạ session chung của cluster (ClusterMessenger)
+ */
+@Service
+public class PresenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+
+    @Autowired
+    private ClusterMessenger clusterMessenger;
+
+    @Value("${presence.stale-ms:90000}")
+    private long staleMs;
+
+    // sessionId → session trên node này (SessionDisconnectEvent có thể đến nhiều lần)
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    // username → số session trên node này
+    private final Map<String, AtomicInteger> onlineUsers = new ConcurrentHashMap<>();
+
+    private static class Session {
+        final String username;
+        volatile long lastSeen = System.currentTimeMillis();
+
+        Session(String username) {
+            this.username = username;
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (user != null) {
+            open(sessionId, user.getName());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        close(event.getSessionId());
+    }
+
+    /**
+     * Session vừa gửi 1 frame (SEND / SUBSCRIBE / heartbeat...).
+     * Session đã bị sweep coi là im lặng nhưng thực ra vẫn kết nối thì được ghi nhận lại (username != null)
+     */
+    public void touch(String sessionId, String username) {
+        Session session = sessionId != null ? sessions.get(sessionId) : null;
+        if (session != null) {
+            session.lastSeen = System.currentTimeMillis();
+        } else if (username != null) {
+            open(sessionId, username);
+        }
+    }
+
+    public boolean isOnline(String username) {
+        if (username == null) {
+            return false;
+        }
+        return onlineUsers.containsKey(username) || clusterMessenger.isOnline(username);
+    }
+
+    /**
+     * Số user đang online trên node này
+     */
+    public int getOnlineCount() {
+        return onlineUsers.size();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public int getSessionCount(String username) {
+        AtomicInteger count = onlineUsers.get(username);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Số liệu cho trang admin
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("nodeId", clusterMessenger.getNodeId());
+        summary.put("onlineUsers", getOnlineCount());
+        summary.put("sessions", getSessionCount());
+        return summary;
+    }
+
+    @Scheduled(fixedDelayString = "${presence.sweep-ms:30000}")
+    public void sweepStaleSessions() {
+        long cutoff = System.currentTimeMillis() - staleMs;
+        int closed = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (entry.getValue().lastSeen < cutoff && close(entry.getKey())) {
+                closed++;
+            }
+        }
+        if (closed > 0) {
+            logger.info("Presence sweep closed {} stale session(s)", closed);
+        }
+    }
+
+    private void open(String sessionId, String username) {
+        if (sessionId == null || sessions.putIfAbsent(sessionId, new Session(username)) != null) {
+            return;
+        }
+        onlineUsers.compute(username, (u, count) -> {
+            if (count == null) {
+                count = new AtomicInteger();
+            }
+            count.incrementAndGet();
+            return count;
+        });
+        clusterMessenger.sessionOpened(username);
+    }
+
+    private boolean close(String sessionId) {
+        Session session = sessionId != null ? sessions.remove(sessionId) : null;
+        if (session == null) {
+            return false;
+        }
+        onlineUsers.computeIfPresent(session.username, (u, count) -> count.decrementAndGet() > 0 ? count : null);
+        clusterMessenger.sessionClosed(session.username);
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package com.edumoet.service.common;
+
+import com.edumoet.entity.Question;
+import com.edumoet.entity.Tag;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sự kiện phát ra khi câu hỏi được lưu hoặc xóa.
+ * Các index trong bộ nhớ lắng nghe sự kiện này sau khi transaction commit.
+ */
+public class QuestionChangedEvent {
+
+    public enum Type {
+        SAVED,
+        DELETED,
+        COUNTS_CHANGED  // votes / answerCount thay đổi, nội dung giữ nguyên
+    }
+
+    private final Type type;
+    private final Long questionId;
+    private final String title;
+    private final String body;
+    private final boolean approved;
+    private final boolean locked;
+    private final Set<Long> tagIds;
+
+    private QuestionChangedEvent(Type type, Long questionId, String title, String body,
+                                 boolean approved, boolean locked, Set<Long> tagIds) {
+        this.type = type;
+        this.questionId = questionId;
+        this.title = title;
+        this.body = body;
+        this.approved = approved;
+        this.locked = locked;
+        this.tagIds = tagIds;
+    }
+
+    public static QuestionChangedEvent saved(Question question) {
+        Set<Long> tagIds = new HashSet<>();
+        if (question.getTags() != null) {
+            for (Tag tag : question.getTags()) {
+                tagIds.add(tag.getId());
+            }
+        }
+        return new QuestionChangedEvent(Type.SAVED, question.getId(), question.getTitle(), question.getBody(),
+                Boolean.TRUE.equals(question.getIsApproved()), Boolean.TRUE.equals(question.getIsLocked()),
+                Collections.unmodifiableSet(tagIds));
+    }
+
+    public static QuestionChangedEvent deleted(Long questionId) {
+        return new QuestionChangedEvent(Type.DELETED, questionId, null, null, false, false, Collections.emptySet());
+    }
+
+    public static QuestionChangedEvent countsChanged(Long questionId) {
+        return new QuestionChangedEvent(Type.COUNTS_CHANGED, questionId, null, null, false, false, Collections.emptySet());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public boolean isApproved() {
+        return approved;
+    }
+
+    public boolean isLocked() {
+        return locked;
+    }
+
+    public Set<Long> getTagIds() {
+        return tagIds;
+    }
+}
@@ -0,0 +1,121 @@
+package com.edumoet.service.common;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.edumoet.entity.Answer;
+import com.edumoet.entity.Question;
+import com.edumoet.repository.AnswerRepository;
+import com.edumoet.repository.QuestionRepository;
+import com.edumoet.repository.UserRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Question Detail Service - Nạp dữ liệu cho trang chi tiết câu hỏi với số query cố định
+ *
+ * 1. Câu hỏi + tác giả + tags (1 query)
+ * 2. Ảnh của câu hỏi (1 query)
+ * 3. Câu trả lời + tác giả + ảnh (1 query)
+ * 4. Người xem: id (1 query), vote câu hỏi (1 query), vote các câu trả lời trên trang (1 query IN)
+ * 5. Câu hỏi liên quan: đọc từ RelatedQuestionIndex trong bộ nhớ (không query)
+ */
+@Service
+@Transactional(readOnly = true)
+public class QuestionDetailService {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VoteService voteService;
+
+    @Autowired
+    private RelatedQuestionIndex relatedQuestionIndex;
+
+    @Value("${related.shown:8}")
+    private int relatedShown;
+
+    /**
+     * Dữ liệu đã nạp sẵn cho template question/view
+     */
+    public static class QuestionDetail {
+        private final Question question;
+        private final List<Answer> answers;
+        private final boolean upvotedQuestion;
+        private final Set<Long> upvotedAnswerIds;
+        private final List<RelatedQuestionIndex.RelatedQuestion> relatedQuestions;
+
+        public QuestionDetail(Question question, List<Answer> answers,
+                              boolean upvotedQuestion, Set<Long> upvotedAnswerIds,
+                              List<RelatedQuestionIndex.RelatedQuestion> relatedQuestions) {
+            this.question = question;
+            this.answers = answers;
+            this.upvotedQuestion = upvotedQuestion;
+            this.upvotedAnswerIds = upvotedAnswerIds;
+            this.relatedQuestions = relatedQuestions;
+        }
+
+        public Question getQuestion() {
+            return question;
+        }
+
+        public List<Answer> getAnswers() {
+            return answers;
+        }
+
+        public boolean isUpvotedQuestion() {
+            return upvotedQuestion;
+        }
+
+        public Set<Long> getUpvotedAnswerIds() {
+            return upvotedAnswerIds;
+        }
+
+        public List<RelatedQuestionIndex.RelatedQuestion> getRelatedQuestions() {
+            return relatedQuestions;
+        }
+    }
+
+    /**
+     * Câu hỏi kèm tác giả và tags (đủ để kiểm tra quyền xem trước khi nạp phần còn lại)
+     */
+    public Optional<Question> findQuestion(Long id) {
+        return questionRepository.findByIdWithTagsAndAuthor(id);
+    }
+
+    /**
+     * Nạp phần còn lại của trang chi tiết
+     *
+     * @param viewerUsername username người xem, null nếu chưa đăng nhập
+     */
+    public QuestionDetail load(Question question, String viewerUsername) {
+        Hibernate.initialize(question.getImages());
+
+        List<Answer> answers = answerRepository.findForQuestionPage(question.getId());
+
+        boolean upvotedQuestion = false;
+        Set<Long> upvotedAnswerIds = Collections.emptySet();
+        Long viewerId = viewerUsername != null ? userRepository.findIdByUsername(viewerUsername).orElse(null) : null;
+        if (viewerId != null) {
+            upvotedQuestion = voteService.hasVotedQuestion(question.getId(), viewerId);
+            upvotedAnswerIds = voteService.findVotedAnswerIds(viewerId,
+                    answers.stream().map(Answer::getId).collect(Collectors.toList()));
+        }
+        return new QuestionDetail(question, answers, upvotedQuestion, upvotedAnswerIds,
+                relatedQuestionIndex.related(question.getId(), relatedShown));
+    }
+}
@@ -0,0 +1,142 @@
+package com.edumoet.service.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Feed Cache - Giữ N trang đầu của feed công khai (mỗi kiểu sắp xếp) trong bộ nhớ
+ *
+ * - Mỗi trang là một snapshot bất biến của QuestionSummary (author, tags đã gắn sẵn)
+ * - Chỉ cache trang có kích thước mặc định (feed.cache.page-size); size khác đọc thẳng DB
+ * - Tạo / duyệt / khóa / xóa câu hỏi → xóa toàn bộ cache
+ * - Vote / số câu trả lời thay đổi → chỉ xóa feed sắp theo votes / answers
+ * - Mọi snapshot hết hạn sau feed.cache.max-staleness-ms
+ */
+@Component
+public class QuestionFeedCache {
+
+    @Value("${feed.cache.pages:3}")
+    private int cachedPages;
+
+    @Value("${feed.cache.page-size:15}")
+    private int cachedPageSize;
+
+    @Value("${feed.cache.max-staleness-ms:30000}")
+    private long maxStalenessMs;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<FeedCursor.Sort, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class Snapshot {
+        private final CursorPage<QuestionSummary> page;
+        private final int pageIndex;
+        private final long createdAt;
+
+        private Snapshot(CursorPage<QuestionSummary> page, int pageIndex) {
+            this.page = page;
+            this.pageIndex = pageIndex;
+            this.createdAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Lấy trang từ cache hoặc nạp bằng loader (loader chạy trong transaction của QuestionService)
+     */
+    public CursorPage<QuestionSummary> get(FeedCursor.Sort sort, String cursor, int size,
+                                           Supplier<CursorPage<QuestionSummary>> loader) {
+        if (size != cachedPageSize) {
+            // size do client chọn: không để mỗi giá trị tạo thêm snapshot
+            return loader.get();
+        }
+        String key = key(sort, cursor);
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && System.currentTimeMillis() - snapshot.createdAt <= maxStalenessMs) {
+            hits.incrementAndGet();
+            return snapshot.page;
+        }
+        misses.incrementAndGet();
+
+        int pageIndex = pageIndexOf(sort, cursor);
+        long generation = generation(sort).get();
+        CursorPage<QuestionSummary> page = loader.get();
+        if (pageIndex >= 0 && pageIndex < cachedPages) {
+            CursorPage<QuestionSummary> frozen = new CursorPage<>(
+                    Collections.unmodifiableList(page.getContent()), page.getNextCursor());
+            // Skip the put if an invalidation happened while loading: the rows may predate it
+            if (generation(sort).get() == generation) {
+                snapshots.put(key, new Snapshot(frozen, pageIndex));
+            }
+            return frozen;
+        }
+        return page;
+    }
+
+    /**
+     * Vị trí trang trong chuỗi trang đã cache: 0 = trang đầu, -1 = ngoài phạm vi cache
+     */
+    private int pageIndexOf(FeedCursor.Sort sort, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        String prefix = sort.name() + ":";
+        for (Map.Entry<String, Snapshot> entry : snapshots.entrySet()) {
+            if (entry.getKey().startsWith(prefix) && cursor.equals(entry.getValue().page.getNextCursor())) {
+                return entry.getValue().pageIndex + 1;
+            }
+        }
+        return -1;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        if (event.getType() == QuestionChangedEvent.Type.COUNTS_CHANGED) {
+            invalidate(FeedCursor.Sort.VOTES);
+            invalidate(FeedCursor.Sort.ANSWERS);
+        } else {
+            invalidateAll();
+        }
+    }
+
+    public void invalidate(FeedCursor.Sort sort) {
+        generation(sort).incrementAndGet();
+        snapshots.keySet().removeIf(key -> key.startsWith(sort.name() + ":"));
+    }
+
+    public void invalidateAll() {
+        for (FeedCursor.Sort sort : FeedCursor.Sort.values()) {
+            invalidate(sort);
+        }
+    }
+
+    private AtomicLong generation(FeedCursor.Sort sort) {
+        return generations.computeIfAbsent(sort, s -> new AtomicLong());
+    }
+
+    private static String key(FeedCursor.Sort sort, String cursor) {
+        return sort.name() + ":" + (cursor == null ? "" : cursor);
+    }
+
+    // ================== METRICS ==================
+
+    public Map<String, Object> getMetrics() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("hits", h);
+        metrics.put("misses", m);
+        metrics.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        metrics.put("cachedPages", snapshots.size());
+        metrics.put("maxStalenessMs", maxStalenessMs);
+        return metrics;
+    }
+}
@@ -0,0 +1,375 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.edumoet.repository.QuestionRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search Index - Chỉ mục đảo ngược trong bộ nhớ cho tiêu đề và nội dung câu hỏi
+ *
+ * - Bỏ dấu tiếng Việt khi đánh chỉ mục và khi tìm kiếm (SearchTextNormalizer)
+ * - Xếp hạng BM25F: tiêu đề có trọng số cao hơn nội dung
+ * - Token cuối của truy vấn được mở rộng theo tiền tố ("spr" → "spring")
+ * - Cập nhật tăng dần qua QuestionChangedEvent, dựng lại từ DB khi khởi động
+ */
+@Component
+public class QuestionSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double BODY_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Value("${search.index.rebuild-batch-size:500}")
+    private int rebuildBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sự kiện đến trong lúc đang rebuild, được áp dụng lại sau khi hoán đổi dữ liệu
+    private final Map<Long, QuestionChangedEvent> pendingDuringRebuild = new ConcurrentHashMap<>();
+
+    private IndexData data = new IndexData();
+    private volatile boolean ready = false;
+    private volatile boolean rebuilding = false;
+
+    /**
+     * Kết quả tìm kiếm: id theo thứ tự điểm giảm dần + tổng số kết quả
+     */
+    public static class SearchResult {
+        private final List<Long> ids;
+        private final long total;
+
+        public SearchResult(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    private static final class Posting {
+        private final int titleTf;
+        private final int bodyTf;
+
+        private Posting(int titleTf, int bodyTf) {
+            this.titleTf = titleTf;
+            this.bodyTf = bodyTf;
+        }
+    }
+
+    private static final class Document {
+        private final int titleLength;
+        private final int bodyLength;
+        private final boolean approved;
+        private final boolean locked;
+        private final String[] terms;
+
+        private Document(int titleLength, int bodyLength, boolean approved, boolean locked, String[] terms) {
+            this.titleLength = titleLength;
+            this.bodyLength = bodyLength;
+            this.approved = approved;
+            this.locked = locked;
+            this.terms = terms;
+        }
+    }
+
+    private static final class IndexData {
+        private final NavigableMap<String, Map<Long, Posting>> postings = new TreeMap<>();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private long totalTitleLength;
+        private long totalBodyLength;
+    }
+
+    /**
+     * Token đã tách sẵn (thực hiện ngoài khóa ghi)
+     */
+    private static final class AnalyzedDocument {
+        private final Long id;
+        private final Map<String, int[]> termFrequencies = new HashMap<>();
+        private final int titleLength;
+        private final int bodyLength;
+        private final boolean approved;
+        private final boolean locked;
+
+        private AnalyzedDocument(Long id, String title, String body, boolean approved, boolean locked) {
+            this.id = id;
+            this.approved = approved;
+            this.locked = locked;
+            List<String> titleTokens = SearchTextNormalizer.tokenize(title);
+            List<String> bodyTokens = SearchTextNormalizer.tokenize(body);
+            for (String token : titleTokens) {
+                termFrequencies.computeIfAbsent(token, k -> new int[2])[0]++;
+            }
+            for (String token : bodyTokens) {
+                termFrequencies.computeIfAbsent(token, k -> new int[2])[1]++;
+            }
+            this.titleLength = titleTokens.size();
+            this.bodyLength = bodyTokens.size();
+        }
+    }
+
+    // ================== INDEX MAINTENANCE ==================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Tìm kiếm sẽ dùng truy vấn SQL cho đến khi rebuild thành công
+            logger.warn("Question search index unavailable, falling back to SQL search");
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ DB theo từng lô (keyset theo id)
+     */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        pendingDuringRebuild.clear();
+        IndexData fresh = new IndexData();
+        int count = 0;
+        try {
+            Long afterId = 0L;
+            while (true) {
+                List<Object[]> rows = questionRepository.findSearchDocumentsAfter(
+                        afterId, PageRequest.of(0, rebuildBatchSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    addDocument(fresh, new AnalyzedDocument(id, (String) row[1], (String) row[2],
+                            Boolean.TRUE.equals(row[3]), Boolean.TRUE.equals(row[4])));
+                    afterId = id;
+                    count++;
+                }
+            }
+        } catch (RuntimeException e) {
+            rebuilding = false;
+            logger.error("Failed to rebuild question search index", e);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            data = fresh;
+            rebuilding = false;
+            for (QuestionChangedEvent event : pendingDuringRebuild.values()) {
+                applyLocked(event);
+            }
+            pendingDuringRebuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Question search index rebuilt: {} documents, {} terms in {} ms",
+                count, fresh.postings.size(), System.currentTimeMillis() - start);
+        return count;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        if (event.getQuestionId() == null || event.getType() == QuestionChangedEvent.Type.COUNTS_CHANGED) {
+            return;
+        }
+        AnalyzedDocument analyzed = event.getType() == QuestionChangedEvent.Type.SAVED
+                ? new AnalyzedDocument(event.getQuestionId(), event.getTitle(), event.getBody(),
+                        event.isApproved(), event.isLocked())
+                : null;
+
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDuringRebuild.put(event.getQuestionId(), event);
+            }
+            if (analyzed != null) {
+                addDocument(data, analyzed);
+            } else {
+                removeDocument(data, event.getQuestionId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(QuestionChangedEvent event) {
+        if (event.getType() == QuestionChangedEvent.Type.SAVED) {
+            addDocument(data, new AnalyzedDocument(event.getQuestionId(), event.getTitle(), event.getBody(),
+                    event.isApproved(), event.isLocked()));
+        } else {
+            removeDocument(data, event.getQuestionId());
+        }
+    }
+
+    private static void addDocument(IndexData target, AnalyzedDocument doc) {
+        removeDocument(target, doc.id);
+        String[] terms = new String[doc.termFrequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, int[]> entry : doc.termFrequencies.entrySet()) {
+            int[] tf = entry.getValue();
+            target.postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                    .put(doc.id, new Posting(tf[0], tf[1]));
+            terms[i++] = entry.getKey();
+        }
+        target.documents.put(doc.id, new Document(doc.titleLength, doc.bodyLength, doc.approved, doc.locked, terms));
+        target.totalTitleLength += doc.titleLength;
+        target.totalBodyLength += doc.bodyLength;
+    }
+
+    private static void removeDocument(IndexData target, Long id) {
+        Document old = target.documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String term : old.terms) {
+            Map<Long, Posting> list = target.postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    target.postings.remove(term);
+                }
+            }
+        }
+        target.totalTitleLength -= old.titleLength;
+        target.totalBodyLength -= old.bodyLength;
+    }
+
+    // ================== QUERY ==================
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm kiếm câu hỏi đã duyệt, xếp hạng BM25
+     *
+     * @param includeLocked true nếu người xem là Admin/Manager
+     */
+    public SearchResult search(String query, long offset, int limit, boolean includeLocked) {
+        List<String> terms = SearchTextNormalizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int n = data.documents.size();
+            if (n == 0) {
+                return new SearchResult(Collections.emptyList(), 0);
+            }
+            double avgTitle = Math.max(1.0, (double) data.totalTitleLength / n);
+            double avgBody = Math.max(1.0, (double) data.totalBodyLength / n);
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Map<Long, Posting> exact = data.postings.get(term);
+                if (exact != null) {
+                    accumulate(scores, exact, 1.0, n, avgTitle, avgBody, includeLocked);
+                }
+                if (i == terms.size() - 1) {
+                    int expanded = 0;
+                    for (Map.Entry<String, Map<Long, Posting>> entry
+                            : data.postings.subMap(term, false, term + Character.MAX_VALUE, false).entrySet()) {
+                        if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        accumulate(scores, entry.getValue(), PREFIX_WEIGHT, n, avgTitle, avgBody, includeLocked);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new SearchResult(topK(scores, offset, limit), scores.size());
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Posting> list, double weight,
+                            int n, double avgTitle, double avgBody, boolean includeLocked) {
+        int df = list.size();
+        double idf = Math.log(1.0 + (n - df + 0.5) / (df + 0.5));
+        for (Map.Entry<Long, Posting> entry : list.entrySet()) {
+            Document doc = data.documents.get(entry.getKey());
+            if (doc == null || !doc.approved || (doc.locked && !includeLocked)) {
+                continue;
+            }
+            Posting p = entry.getValue();
+            double tf = TITLE_WEIGHT * p.titleTf / (1 - B + B * doc.titleLength / avgTitle)
+                      + BODY_WEIGHT * p.bodyTf / (1 - B + B * doc.bodyLength / avgBody);
+            double score = weight * idf * tf * (K1 + 1) / (K1 + tf);
+            scores.merge(entry.getKey(), score, Double::sum);
+        }
+    }
+
+    /**
+     * Lấy trang kết quả [offset, offset + limit) bằng heap kích thước cố định
+     */
+    private static List<Long> topK(Map<Long, Double> scores, long offset, int limit) {
+        long k = offset + limit;
+        if (offset >= scores.size()) {
+            return Collections.emptyList();
+        }
+        // Điểm bằng nhau → câu hỏi mới hơn (id lớn hơn) xếp trước
+        Comparator<Map.Entry<Long, Double>> byRank = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(byRank);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (heap.size() < k) {
+                heap.offer(entry);
+            } else if (byRank.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(entry);
+            }
+        }
+        List<Long> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return new ArrayList<>(ranked.subList((int) offset, ranked.size()));
+    }
+}
@@ -3,7 +3,10 @@ package com.edumoet.service.common;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,11 +18,20 @@ import com.edumoet.entity.Question;
 import com.edumoet.entity.Tag;
 import com.edumoet.entity.User;
 import com.edumoet.repository.QuestionRepository;
+import com.edumoet.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -28,9 +40,27 @@ public class QuestionService {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private TagService tagService;
 
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+
+    @Autowired
+    private QuestionViewCounter questionViewCounter;
+
+    @Autowired
+    private VoteService voteService;
+
+    @Autowired
+    private QuestionFeedCache questionFeedCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -49,10 +79,10 @@ public class QuestionService {
             question.setIsApproved(false); // USER questions need admin approval
         }
         
-        Question savedQuestion = questionRepository.save(question);
+        Question savedQuestion = saveAndPublish(question);
         
-        // Increment question count for each tag
-        tags.forEach(Tag::incrementQuestionCount);
+        // Increment question count for each tag (1 atomic UPDATE)
+        tagService.adjustQuestionCounts(tagIds(tags), 1);
         
         return savedQuestion;
     }
@@ -123,18 +153,202 @@ public class QuestionService {
         return questionRepository.findByTag(tag, pageable);
     }
 
-    public Page<Question> searchQuestions(String search, Pageable pageable) {
-        // Only return approved questions in search results
-        // Note: searchQuestions already filters by isApproved = true
-        return questionRepository.searchQuestions(search, pageable);
+    // ================== KEYSET (CURSOR) FEEDS ==================
+    
+    private static final List<Boolean> ONLY_TRUE = List.of(true);
+    private static final List<Boolean> ONLY_FALSE = List.of(false);
+    private static final List<Boolean> ANY = List.of(true, false);
+    
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    /**
+     * Feed trang chủ phân trang theo con trỏ (không OFFSET, không COUNT)
+     * - Public: câu hỏi đã duyệt và không bị khóa
+     * - Admin/Manager (includeHidden): mọi câu hỏi; sắp theo votes/answers chỉ lấy câu đã duyệt
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<QuestionSummary> getFeed(FeedCursor.Sort sort, String cursor, int requestedSize, boolean includeHidden) {
+        int size = clampSize(requestedSize);
+        if (!includeHidden) {
+            // Public first pages are served from immutable snapshots
+            return questionFeedCache.get(sort, cursor, size, () -> loadFeed(sort, cursor, size, false));
+        }
+        return loadFeed(sort, cursor, size, true);
+    }
+    
+    private CursorPage<QuestionSummary> loadFeed(FeedCursor.Sort sort, String cursor, int size, boolean includeHidden) {
+        FeedCursor position = FeedCursor.decode(cursor, sort);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Boolean> locked = includeHidden ? ANY : ONLY_FALSE;
+        List<Boolean> approved = includeHidden && sort == FeedCursor.Sort.NEWEST ? ANY : ONLY_TRUE;
+        
+        List<QuestionSummary> rows;
+        switch (sort) {
+            case VOTES:
+                rows = questionRepository.findFeedByVotes(approved, locked, position.intKey(), position.getId(), limit);
+                break;
+            case ANSWERS:
+                rows = questionRepository.findFeedByAnswers(approved, locked, position.intKey(), position.getId(), limit);
+                break;
+            default:
+                rows = questionRepository.findFeedByNewest(approved, locked, position.createdAt(), position.getId(), limit);
+                break;
+        }
+        return toCursorPage(rows, size, sort);
+    }
+    
+    /**
+     * Câu hỏi đã duyệt của 1 tag, mới nhất trước (phân trang theo con trỏ)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<QuestionSummary> getQuestionsByTag(Tag tag, String cursor, int requestedSize) {
+        int size = clampSize(requestedSize);
+        FeedCursor position = FeedCursor.decode(cursor, FeedCursor.Sort.NEWEST);
+        List<QuestionSummary> rows = questionRepository.findFeedByTag(
+                tag, position.createdAt(), position.getId(), PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size, FeedCursor.Sort.NEWEST);
+    }
+    
+    /**
+     * Câu hỏi của 1 tác giả, mới nhất trước
+     *
+     * @param approved null = tất cả, true = đã duyệt, false = chờ duyệt
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<QuestionSummary> getQuestionsByAuthor(User author, Boolean approved, String cursor, int requestedSize) {
+        int size = clampSize(requestedSize);
+        FeedCursor position = FeedCursor.decode(cursor, FeedCursor.Sort.NEWEST);
+        List<Boolean> states = approved == null ? ANY : (approved ? ONLY_TRUE : ONLY_FALSE);
+        List<QuestionSummary> rows = questionRepository.findFeedByAuthor(
+                author, states, position.createdAt(), position.getId(), PageRequest.of(0, size + 1));
+        return toCursorPage(rows, size, FeedCursor.Sort.NEWEST);
+    }
+    
+    // size lấy từ request: giới hạn trong 1..MAX_PAGE_SIZE
+    private static int clampSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+    
+    /**
+     * Query lấy size + 1 dòng: dòng thừa chỉ để biết còn trang sau
+     */
+    private CursorPage<QuestionSummary> toCursorPage(List<QuestionSummary> rows, int size, FeedCursor.Sort sort) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(attachAuthorsAndTags(rows), null);
+        }
+        List<QuestionSummary> content = attachAuthorsAndTags(new ArrayList<>(rows.subList(0, size)));
+        QuestionSummary last = content.get(size - 1);
+        Object key;
+        switch (sort) {
+            case VOTES:
+                key = last.getVotes();
+                break;
+            case ANSWERS:
+                key = last.getAnswerCount();
+                break;
+            default:
+                key = last.getCreatedAt();
+                break;
+        }
+        return new CursorPage<>(content, FeedCursor.encode(sort, key, last.getId()));
+    }
+    
+    // ================== SUMMARY READ MODEL ==================
+    
+    /**
+     * Danh sách câu hỏi cho trang quản trị (admin/manager)
+     *
+     * @param approved null = tất cả, true = đã duyệt, false = chờ duyệt
+     */
+    @Transactional(readOnly = true)
+    public Page<QuestionSummary> getQuestionSummaries(Boolean approved, Pageable pageable) {
+        List<Boolean> states = approved == null ? ANY : (approved ? ONLY_TRUE : ONLY_FALSE);
+        Page<QuestionSummary> page = questionRepository.findSummaries(states, pageable);
+        attachAuthorsAndTags(page.getContent());
+        return page;
+    }
+    
+    /**
+     * Gắn tác giả và tags cho cả trang bằng đúng 2 query (thay vì 1 query / câu hỏi)
+     */
+    private List<QuestionSummary> attachAuthorsAndTags(List<QuestionSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Set<Long> questionIds = new HashSet<>();
+        Set<Long> authorIds = new HashSet<>();
+        for (QuestionSummary summary : summaries) {
+            questionIds.add(summary.getId());
+            authorIds.add(summary.getAuthorId());
+        }
+        
+        Map<Long, List<QuestionSummary.TagRef>> tagsByQuestion = new HashMap<>();
+        for (Object[] row : questionRepository.findTagRefsByQuestionIdIn(questionIds)) {
+            tagsByQuestion.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                    .add(new QuestionSummary.TagRef((Long) row[1], (String) row[2]));
+        }
+        
+        Map<Long, QuestionSummary.Author> authors = new HashMap<>();
+        for (Object[] row : userRepository.findAuthorRowsByIdIn(authorIds)) {
+            authors.put((Long) row[0],
+                    new QuestionSummary.Author((Long) row[0], (String) row[1], (String) row[2], (String) row[3]));
+        }
+        
+        for (QuestionSummary summary : summaries) {
+            summary.attach(authors.get(summary.getAuthorId()), tagsByQuestion.get(summary.getId()));
+        }
+        return summaries;
+    }
+
+    public Page<QuestionSummary> searchQuestions(String search, Pageable pageable) {
+        // Public search: locked questions are hidden (admin/manager pass includeLocked = true)
+        return searchQuestions(search, pageable, false);
+    }
+
+    /**
+     * Tìm kiếm qua QuestionSearchIndex (BM25, bỏ dấu tiếng Việt)
+     * Chỉ trả về câu hỏi đã duyệt; câu hỏi bị khóa chỉ hiện khi includeLocked = true
+     */
+    @Transactional(readOnly = true)
+    public Page<QuestionSummary> searchQuestions(String search, Pageable pageable, boolean includeLocked) {
+        if (!questionSearchIndex.isReady()) {
+            // Index is still rebuilding at startup → fall back to SQL LIKE
+            Page<QuestionSummary> page = questionRepository.searchQuestions(search, includeLocked ? ANY : ONLY_FALSE, pageable);
+            attachAuthorsAndTags(page.getContent());
+            return page;
+        }
+        
+        QuestionSearchIndex.SearchResult result = questionSearchIndex.search(
+                search, pageable.getOffset(), pageable.getPageSize(), includeLocked);
+        if (result.getIds().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, result.getTotal());
+        }
+        
+        // One query for the page, then restore ranking order
+        Map<Long, QuestionSummary> byId = questionRepository.findSummariesByIdIn(result.getIds()).stream()
+                .collect(Collectors.toMap(QuestionSummary::getId, Function.identity()));
+        List<QuestionSummary> ranked = result.getIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(attachAuthorsAndTags(ranked), pageable, result.getTotal());
     }
 
     public Question updateQuestion(Question question, Set<String> tagNames) {
         if (tagNames != null && !tagNames.isEmpty()) {
+            Set<Long> oldIds = tagIds(question.getTags());
             Set<Tag> tags = tagService.getOrCreateTags(tagNames);
             question.setTags(tags);
+            
+            // Only tags actually added / removed change their question count
+            Set<Long> newIds = tagIds(tags);
+            Set<Long> added = new HashSet<>(newIds);
+            added.removeAll(oldIds);
+            oldIds.removeAll(newIds);
+            tagService.adjustQuestionCounts(added, 1);
+            tagService.adjustQuestionCounts(oldIds, -1);
         }
-        return questionRepository.save(question);
+        return saveAndPublish(question);
     }
 
     @Transactional
@@ -143,9 +357,7 @@ public class QuestionService {
         Question question = questionRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Question not found"));
         
-        question.getTags().forEach(tag -> {
-            tag.setQuestionCount(Math.max(0, tag.getQuestionCount() - 1));
-        });
+        tagService.adjustQuestionCounts(tagIds(question.getTags()), -1);
         
         // STEP 2: Delete from join table using direct EntityManager query
         // This ensures it executes BEFORE deleteById
@@ -159,13 +371,17 @@ public class QuestionService {
         // STEP 3: Now safe to delete the question
         // Cascade will handle answers, comments, images
         questionRepository.deleteById(id);
+        eventPublisher.publishEvent(QuestionChangedEvent.deleted(id));
         
         System.out.println("Successfully deleted question ID: " + id);
     }
 
+    /**
+     * Lượt xem được gom trong QuestionViewCounter và ghi xuống DB theo lô
+     * (không save entity ở mỗi lượt xem)
+     */
     public void incrementViews(Question question) {
-        question.incrementViews();
-        questionRepository.save(question);
+        questionViewCounter.record(question.getId());
     }
 
     /**
@@ -174,55 +390,21 @@ public class QuestionService {
      * - Đã vote → Click upvote → -1 vote (undo)
      * 
      * Example: 13 votes → user click → 14 votes → user click again → 13 votes
+     * Ghi vào sổ vote bằng SQL (VoteService), không nạp danh sách vote của user
      */
     public void upvoteQuestion(Question question, User user) {
-        boolean hasUpvoted = user.getVotedQuestions().contains(question);
-        
-        System.out.println("🔍 Upvote Question #" + question.getId() + " by User #" + user.getId());
-        System.out.println("   Current votes: " + question.getVotes());
-        System.out.println("   Has upvoted: " + hasUpvoted);
-        
-        if (hasUpvoted) {
-            // Already upvoted → Undo upvote (-1)
-            System.out.println("   ➡️ Undo upvote: " + question.getVotes() + " - 1 = " + (question.getVotes() - 1));
-            question.downvote();
-            user.getVotedQuestions().remove(question);
-        } else {
-            // Not voted yet → Add upvote (+1)
-            System.out.println("   ➡️ New upvote: " + question.getVotes() + " + 1 = " + (question.getVotes() + 1));
-            question.upvote();
-            user.getVotedQuestions().add(question);
-        }
-        
-        System.out.println("   ✅ Final votes: " + question.getVotes());
-        questionRepository.save(question);
+        int votes = voteService.toggleQuestionVote(question.getId(), user.getId());
+        question.setVotes(votes);
     }
 
     /**
      * Downvote (Undo upvote):
      * - Chỉ hoạt động khi user ĐÃ upvote trước đó
-     * - Giảm 1 vote và remove khỏi votedQuestions
+     * - Giảm 1 vote và xóa khỏi sổ vote
      */
     public void downvoteQuestion(Question question, User user) {
-        boolean hasUpvoted = user.getVotedQuestions().contains(question);
-        
-        System.out.println("🔽 Downvote Question #" + question.getId() + " by User #" + user.getId());
-        System.out.println("   Current votes: " + question.getVotes());
-        System.out.println("   Has upvoted: " + hasUpvoted);
-        
-        if (hasUpvoted) {
-            // Đã upvote → Downvote = Undo (-1)
-            System.out.println("   ➡️ Downvote (undo upvote): " + question.getVotes() + " - 1 = " + (question.getVotes() - 1));
-            question.downvote();
-            user.getVotedQuestions().remove(question);
-        } else {
-            // Chưa upvote → Không cho downvote
-            System.out.println("   ⚠️ Cannot downvote - must upvote first");
-            throw new RuntimeException("Bạn phải upvote trước khi downvote");
-        }
-        
-        System.out.println("   ✅ Final votes: " + question.getVotes());
-        questionRepository.save(question);
+        int votes = voteService.removeQuestionVote(question.getId(), user.getId());
+        question.setVotes(votes);
     }
 
     public Long countByAuthor(User author) {
@@ -249,28 +431,28 @@ public class QuestionService {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         question.setIsLocked(true);
-        questionRepository.save(question);
+        saveAndPublish(question);
     }
 
     public void unlockQuestion(Long questionId) {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         question.setIsLocked(false);
-        questionRepository.save(question);
+        saveAndPublish(question);
     }
 
     public void approveQuestion(Long questionId) {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         question.setIsApproved(true);
-        questionRepository.save(question);
+        saveAndPublish(question);
     }
 
     public void rejectQuestion(Long questionId) {
         Question question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
         question.setIsApproved(false);
-        questionRepository.save(question);
+        saveAndPublish(question);
     }
 
     @Transactional
@@ -287,7 +469,24 @@ public class QuestionService {
             }
         }
         // For existing questions, don't change isApproved (let admin control it)
-        return questionRepository.save(question);
+        return saveAndPublish(question);
+    }
+    
+    /**
+     * Save and notify in-memory indexes (applied after commit)
+     */
+    private Question saveAndPublish(Question question) {
+        Question saved = questionRepository.save(question);
+        eventPublisher.publishEvent(QuestionChangedEvent.saved(saved));
+        return saved;
+    }
+    
+    private static Set<Long> tagIds(Set<Tag> tags) {
+        Set<Long> ids = new HashSet<>();
+        if (tags != null) {
+            tags.forEach(tag -> ids.add(tag.getId()));
+        }
+        return ids;
     }
     
     /**
@@ -0,0 +1,167 @@
+package com.edumoet.service.common;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read model cho các trang danh sách câu hỏi (home, tag, tìm kiếm, admin)
+ *
+ * - Không chứa body đầy đủ, chỉ một đoạn trích ngắn cắt sẵn bằng SQL
+ * - Tags và tác giả được gắn sau bằng 2 query gom theo trang (xem QuestionService)
+ * - Tên getter giống entity Question nên template dùng chung được
+ */
+public class QuestionSummary {
+
+    /** Số ký tự body được lấy về cho đoạn trích (template tự cắt tiếp bằng abbreviate) */
+    public static final int EXCERPT_LENGTH = 300;
+
+    private final Long id;
+    private final String title;
+    private final String excerpt;
+    private final Integer views;
+    private final Integer votes;
+    private final Integer answerCount;
+    private final Boolean isPinned;
+    private final Boolean isLocked;
+    private final Boolean isApproved;
+    private final Long acceptedAnswerId;
+    private final LocalDateTime createdAt;
+    private final Long authorId;
+
+    private Author author;
+    private List<TagRef> tags = Collections.emptyList();
+
+    public QuestionSummary(Long id, String title, String excerpt, Integer views, Integer votes,
+                           Integer answerCount, Boolean isPinned, Boolean isLocked, Boolean isApproved,
+                           Long acceptedAnswerId, LocalDateTime createdAt, Long authorId) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.views = views;
+        this.votes = votes;
+        this.answerCount = answerCount;
+        this.isPinned = isPinned;
+        this.isLocked = isLocked;
+        this.isApproved = isApproved;
+        this.acceptedAnswerId = acceptedAnswerId;
+        this.createdAt = createdAt;
+        this.authorId = authorId;
+    }
+
+    /**
+     * Tác giả rút gọn: chỉ các cột mà template danh sách hiển thị
+     */
+    public static class Author {
+        private final Long id;
+        private final String username;
+        private final String profileImage;
+        private final String role;
+
+        public Author(Long id, String username, String profileImage, String role) {
+            this.id = id;
+            this.username = username;
+            this.profileImage = profileImage;
+            this.role = role;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getProfileImage() {
+            return profileImage;
+        }
+
+        public String getRole() {
+            return role;
+        }
+    }
+
+    /**
+     * Tag rút gọn (id, name)
+     */
+    public static class TagRef {
+        private final Long id;
+        private final String name;
+
+        public TagRef(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // Set once by QuestionService before the summary leaves the service layer
+    void attach(Author author, List<TagRef> tags) {
+        this.author = author;
+        this.tags = tags != null ? Collections.unmodifiableList(tags) : Collections.emptyList();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public Integer getViews() {
+        return views;
+    }
+
+    public Integer getVotes() {
+        return votes;
+    }
+
+    public Integer getAnswerCount() {
+        return answerCount;
+    }
+
+    public Boolean getIsPinned() {
+        return isPinned;
+    }
+
+    public Boolean getIsLocked() {
+        return isLocked;
+    }
+
+    public Boolean getIsApproved() {
+        return isApproved;
+    }
+
+    public Long getAcceptedAnswerId() {
+        return acceptedAnswerId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    public List<TagRef> getTags() {
+        return tags;
+    }
+}
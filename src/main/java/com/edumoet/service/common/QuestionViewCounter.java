@@ -0,0 +1,180 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * View Counter - Đếm lượt xem câu hỏi theo cơ chế write-behind
+ *
+ * Mỗi lượt xem chỉ cộng vào bộ đếm trong bộ nhớ (ConcurrentHashMap khóa theo bin,
+ * nên các câu hỏi khác nhau không tranh chấp nhau). Định kỳ các bộ đếm được ghi xuống
+ * DB bằng một lô "UPDATE questions SET views = views + ?".
+ *
+ * Độ trễ tối đa của cột views = views.flush-interval-ms (cộng thời gian chạy một lần flush).
+ */
+@Component
+public class QuestionViewCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionViewCounter.class);
+
+    private static final String FLUSH_SQL = "UPDATE questions SET views = views + ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${views.flush-interval-ms:5000}")
+    private long flushIntervalMs;
+
+    @Value("${views.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingViews = new AtomicLong();
+    private final AtomicLong flushedViews = new AtomicLong();
+    private volatile long lastFlushAt = System.currentTimeMillis();
+
+    /**
+     * Ghi nhận 1 lượt xem (không truy cập DB)
+     */
+    public void record(Long questionId) {
+        if (questionId == null) {
+            return;
+        }
+        pending.merge(questionId, 1L, Long::sum);
+        pendingViews.incrementAndGet();
+    }
+
+    /**
+     * Lượt xem chưa ghi xuống DB của 1 câu hỏi
+     */
+    public long getPendingViews(Long questionId) {
+        return pending.getOrDefault(questionId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${views.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        logger.info("View counter flushed {} questions on shutdown", flushed);
+    }
+
+    /**
+     * Ghi toàn bộ bộ đếm xuống DB, trả về số câu hỏi được cập nhật
+     */
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            lastFlushAt = System.currentTimeMillis();
+            return 0;
+        }
+
+        // remove() is atomic per key: views recorded after it start a fresh entry
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long questionId : pending.keySet()) {
+            Long count = pending.remove(questionId);
+            if (count != null && count > 0) {
+                drained.put(questionId, count);
+            }
+        }
+
+        List<Object[]> batch = new ArrayList<>(Math.min(drained.size(), flushBatchSize));
+        int updated = 0;
+        for (Map.Entry<Long, Long> entry : drained.entrySet()) {
+            batch.add(new Object[] { entry.getValue(), entry.getKey() });
+            if (batch.size() >= flushBatchSize) {
+                updated += writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            updated += writeBatch(batch);
+        }
+
+        lastFlushAt = System.currentTimeMillis();
+        return updated;
+    }
+
+    private int writeBatch(List<Object[]> batch) {
+        long views = 0;
+        for (Object[] row : batch) {
+            views += (Long) row[0];
+        }
+        try {
+            // All-or-nothing: a batch that fails halfway is rolled back, so re-queueing it cannot count twice
+            new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+            pendingViews.addAndGet(-views);
+            flushedViews.addAndGet(views);
+            return batch.size();
+        } catch (RuntimeException e) {
+            // Put the counts back so the next flush retries them
+            for (Object[] row : batch) {
+                pending.merge((Long) row[1], (Long) row[0], Long::sum);
+            }
+            logger.error("Failed to flush {} question view counters", batch.size(), e);
+            return 0;
+        }
+    }
+
+    // ================== METRICS ==================
+
+    /**
+     * Số lượt xem đang chờ ghi xuống DB
+     */
+    public long getPendingViews() {
+        return pendingViews.get();
+    }
+
+    /**
+     * Số câu hỏi đang có lượt xem chờ ghi
+     */
+    public int getPendingQuestions() {
+        return pending.size();
+    }
+
+    public long getFlushedViews() {
+        return flushedViews.get();
+    }
+
+    public long getMillisSinceLastFlush() {
+        return System.currentTimeMillis() - lastFlushAt;
+    }
+
+    /**
+     * Giới hạn trên của độ trễ cột views (ms)
+     */
+    public long getMaxStalenessMs() {
+        return flushIntervalMs;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("pendingViews", getPendingViews());
+        metrics.put("pendingQuestions", getPendingQuestions());
+        metrics.put("flushedViews", getFlushedViews());
+        metrics.put("millisSinceLastFlush", getMillisSinceLastFlush());
+        metrics.put("maxStalenessMs", getMaxStalenessMs());
+        return metrics;
+    }
+}
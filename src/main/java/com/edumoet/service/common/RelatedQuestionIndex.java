@@ -0,0 +1,386 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Related Questions Index - Câu hỏi liên quan theo tag chung và từ chung trong tiêu đề
+ *
+ * - Điểm(a, b) = TAG_WEIGHT × Σ idf(tag chung) / √(|tags a|·|tags b|)
+ *              + TITLE_WEIGHT × Σ idf(từ chung) / √(|từ a|·|từ b|)  (đối xứng)
+ * - Ứng viên lấy từ chỉ mục đảo ngược tag → câu hỏi và từ → câu hỏi (chỉ câu hỏi đã duyệt),
+ *   mỗi khóa xét tối đa maxCandidatesPerKey câu hỏi mới nhất
+ * - Mỗi câu hỏi giữ sẵn top-N hàng xóm; trang chi tiết chỉ đọc 1 lần từ map, không query DB
+ * - Cập nhật tăng dần qua QuestionChangedEvent: câu hỏi mới được chèn vào danh sách của các hàng xóm,
+ *   danh sách nào đang chứa câu hỏi bị sửa / xóa thì được tính lại khi đọc
+ * - Dựng lại từ DB (2 query) khi khởi động, định kỳ, và sau khi gộp thẻ
+ */
+@Component
+public class RelatedQuestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedQuestionIndex.class);
+
+    private static final double TAG_WEIGHT = 2.0;
+    private static final double TITLE_WEIGHT = 1.0;
+
+    private static final Comparator<RelatedQuestion> BY_SCORE = Comparator
+            .comparingDouble(RelatedQuestion::getScore).reversed()
+            .thenComparing(RelatedQuestion::getId, Comparator.reverseOrder());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${related.neighbours:8}")
+    private int neighbourCount;
+
+    @Value("${related.max-candidates-per-key:2000}")
+    private int maxCandidatesPerKey;
+
+    @Value("${related.rebuild-interval-ms:3600000}")
+    private long rebuildIntervalMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sự kiện đến trong lúc đang rebuild, được áp dụng lại sau khi hoán đổi dữ liệu
+    private final Map<Long, QuestionChangedEvent> pendingDuringRebuild = new ConcurrentHashMap<>();
+
+    private IndexData data = new IndexData();
+    private volatile boolean rebuilding = false;
+    private volatile boolean rebuildRequested = false;
+    private volatile long lastBuiltAt = 0;
+
+    /**
+     * 1 câu hỏi liên quan (id, tiêu đề, điểm)
+     */
+    public static class RelatedQuestion {
+        private final Long id;
+        private final String title;
+        private final double score;
+
+        public RelatedQuestion(Long id, String title, double score) {
+            this.id = id;
+            this.title = title;
+            this.score = score;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    private static final class Document {
+        private final String title;
+        private final Set<Long> tags;
+        private final Set<String> terms;
+        // Được gợi ý cho câu hỏi khác: giống feed công khai (đã duyệt và không bị khóa)
+        private final boolean listed;
+
+        private Document(String title, Set<Long> tags, boolean approved, boolean locked) {
+            this.title = title;
+            this.tags = tags;
+            this.terms = new HashSet<>(SearchTextNormalizer.tokenize(title));
+            this.listed = approved && !locked;
+        }
+    }
+
+    private static final class IndexData {
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final Map<Long, NavigableSet<Long>> byTag = new HashMap<>();
+        private final Map<String, NavigableSet<Long>> byTerm = new HashMap<>();
+        private int listedCount;
+        // Top-N đã tính (đọc dưới read lock nên dùng map đồng thời) và chiều ngược lại: ai đang liệt kê câu hỏi này
+        private final Map<Long, List<RelatedQuestion>> neighbours = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> listedBy = new ConcurrentHashMap<>();
+    }
+
+    // ================== LOOKUP ==================
+
+    /**
+     * Tối đa limit câu hỏi liên quan tới questionId (đã duyệt, không bị khóa), điểm giảm dần
+     */
+    public List<RelatedQuestion> related(Long questionId, int limit) {
+        lock.readLock().lock();
+        try {
+            IndexData d = data;
+            List<RelatedQuestion> list = d.neighbours.get(questionId);
+            if (list == null) {
+                Document doc = d.documents.get(questionId);
+                if (doc == null) {
+                    return Collections.emptyList();
+                }
+                list = computeNeighbours(d, questionId, doc);
+                remember(d, questionId, list);
+            }
+            return list.subList(0, Math.min(Math.max(limit, 0), list.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ================== INDEX MAINTENANCE ==================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.warn("Related questions index unavailable until the next rebuild");
+        }
+    }
+
+    /**
+     * Yêu cầu dựng lại ở lần kiểm tra kế tiếp (tag của nhiều câu hỏi bị đổi bằng SQL)
+     */
+    public void requestRebuild() {
+        rebuildRequested = true;
+    }
+
+    @Scheduled(fixedDelayString = "${related.rebuild-check-ms:60000}")
+    public void scheduledRebuild() {
+        if (rebuilding || (!rebuildRequested && System.currentTimeMillis() - lastBuiltAt < rebuildIntervalMs)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Đã ghi log trong rebuild(), thử lại ở lần kiểm tra sau
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục: 1 query tiêu đề + 1 query question_tags; hàng xóm được tính khi đọc
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        rebuildRequested = false;
+        rebuilding = true;
+        pendingDuringRebuild.clear();
+        IndexData fresh = new IndexData();
+        try {
+            Map<Long, Set<Long>> tagsByQuestion = new HashMap<>();
+            jdbcTemplate.query("SELECT question_id, tag_id FROM question_tags", rs -> {
+                tagsByQuestion.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getLong(2));
+            });
+            jdbcTemplate.query("SELECT id, title, is_approved, is_locked FROM questions", rs -> {
+                long id = rs.getLong(1);
+                Set<Long> tags = tagsByQuestion.getOrDefault(id, Collections.emptySet());
+                addDocument(fresh, id, new Document(rs.getString(2), tags, rs.getBoolean(3), rs.getBoolean(4)));
+            });
+        } catch (RuntimeException e) {
+            rebuilding = false;
+            logger.error("Failed to rebuild related questions index", e);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            data = fresh;
+            rebuilding = false;
+            for (QuestionChangedEvent event : pendingDuringRebuild.values()) {
+                applyLocked(event);
+            }
+            pendingDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastBuiltAt = System.currentTimeMillis();
+        logger.info("Related questions index rebuilt: {} questions in {} ms",
+                fresh.documents.size(), lastBuiltAt - start);
+        return fresh.documents.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQuestionChanged(QuestionChangedEvent event) {
+        if (event.getQuestionId() == null || event.getType() == QuestionChangedEvent.Type.COUNTS_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDuringRebuild.put(event.getQuestionId(), event);
+            }
+            applyLocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(QuestionChangedEvent event) {
+        Long id = event.getQuestionId();
+        removeDocument(data, id);
+        if (event.getType() != QuestionChangedEvent.Type.SAVED) {
+            return;
+        }
+        Document doc = new Document(event.getTitle(), event.getTagIds(), event.isApproved(), event.isLocked());
+        addDocument(data, id, doc);
+
+        // Danh sách của chính câu hỏi + chèn câu hỏi vào danh sách đã tính của các hàng xóm (điểm đối xứng)
+        List<RelatedQuestion> own = computeNeighbours(data, id, doc);
+        remember(data, id, own);
+        if (doc.listed) {
+            for (RelatedQuestion neighbour : own) {
+                offer(data, neighbour.getId(), new RelatedQuestion(id, doc.title, neighbour.getScore()));
+            }
+        }
+    }
+
+    // ================== SCORING ==================
+
+    private List<RelatedQuestion> computeNeighbours(IndexData d, Long id, Document doc) {
+        Map<Long, double[]> scores = new HashMap<>();
+        int n = Math.max(d.listedCount, 1);
+        for (Long tag : doc.tags) {
+            accumulate(d.byTag.get(tag), id, n, scores, 0);
+        }
+        for (String term : doc.terms) {
+            accumulate(d.byTerm.get(term), id, n, scores, 1);
+        }
+
+        PriorityQueue<RelatedQuestion> top = new PriorityQueue<>(BY_SCORE.reversed());
+        for (Map.Entry<Long, double[]> entry : scores.entrySet()) {
+            Document other = d.documents.get(entry.getKey());
+            if (other == null) {
+                continue;
+            }
+            double[] s = entry.getValue();
+            double score = 0;
+            if (s[0] > 0) {
+                score += TAG_WEIGHT * s[0] / Math.sqrt((double) doc.tags.size() * other.tags.size());
+            }
+            if (s[1] > 0) {
+                score += TITLE_WEIGHT * s[1] / Math.sqrt((double) doc.terms.size() * other.terms.size());
+            }
+            top.add(new RelatedQuestion(entry.getKey(), other.title, score));
+            if (top.size() > neighbourCount) {
+                top.poll();
+            }
+        }
+        List<RelatedQuestion> result = new ArrayList<>(top);
+        result.sort(BY_SCORE);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Cộng idf của 1 khóa (tag hoặc từ) cho các câu hỏi mới nhất có khóa đó
+     */
+    private void accumulate(NavigableSet<Long> posting, Long self, int n, Map<Long, double[]> scores, int slot) {
+        if (posting == null || posting.isEmpty()) {
+            return;
+        }
+        double idf = Math.log(1.0 + (double) n / posting.size());
+        Iterator<Long> it = posting.descendingIterator();
+        for (int seen = 0; it.hasNext() && seen < maxCandidatesPerKey; seen++) {
+            Long other = it.next();
+            if (!other.equals(self)) {
+                scores.computeIfAbsent(other, k -> new double[2])[slot] += idf;
+            }
+        }
+    }
+
+    /**
+     * Chèn candidate vào top-N đã tính của câu hỏi owner (nếu có và nếu đủ điểm)
+     */
+    private void offer(IndexData d, Long owner, RelatedQuestion candidate) {
+        List<RelatedQuestion> current = d.neighbours.get(owner);
+        if (current == null) {
+            return;
+        }
+        if (current.size() >= neighbourCount
+                && BY_SCORE.compare(candidate, current.get(current.size() - 1)) >= 0) {
+            return;
+        }
+        List<RelatedQuestion> next = new ArrayList<>(current);
+        next.removeIf(r -> r.getId().equals(candidate.getId()));
+        next.add(candidate);
+        next.sort(BY_SCORE);
+        while (next.size() > neighbourCount) {
+            next.remove(next.size() - 1);
+        }
+        d.neighbours.put(owner, Collections.unmodifiableList(next));
+        d.listedBy.computeIfAbsent(candidate.getId(), k -> ConcurrentHashMap.newKeySet()).add(owner);
+    }
+
+    private static void remember(IndexData d, Long id, List<RelatedQuestion> list) {
+        d.neighbours.put(id, list);
+        for (RelatedQuestion r : list) {
+            d.listedBy.computeIfAbsent(r.getId(), k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    // ================== POSTINGS ==================
+
+    private static void addDocument(IndexData d, Long id, Document doc) {
+        d.documents.put(id, doc);
+        if (!doc.listed) {
+            // Câu hỏi chưa duyệt / bị khóa vẫn có danh sách riêng nhưng không được gợi ý cho câu hỏi khác
+            return;
+        }
+        d.listedCount++;
+        for (Long tag : doc.tags) {
+            d.byTag.computeIfAbsent(tag, k -> new TreeSet<>()).add(id);
+        }
+        for (String term : doc.terms) {
+            d.byTerm.computeIfAbsent(term, k -> new TreeSet<>()).add(id);
+        }
+    }
+
+    private static void removeDocument(IndexData d, Long id) {
+        Document old = d.documents.remove(id);
+        if (old != null && old.listed) {
+            d.listedCount--;
+            for (Long tag : old.tags) {
+                removePosting(d.byTag, tag, id);
+            }
+            for (String term : old.terms) {
+                removePosting(d.byTerm, term, id);
+            }
+        }
+        d.neighbours.remove(id);
+        // Danh sách của các câu hỏi đang liệt kê câu hỏi này có tiêu đề / điểm cũ → tính lại khi đọc
+        Set<Long> owners = d.listedBy.remove(id);
+        if (owners != null) {
+            owners.forEach(d.neighbours::remove);
+        }
+    }
+
+    private static <K> void removePosting(Map<K, NavigableSet<Long>> postings, K key, Long id) {
+        NavigableSet<Long> posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.edumoet.service.common;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa văn bản cho tìm kiếm: bỏ dấu tiếng Việt, chữ thường, tách từ.
+ * "Lập trình Java" → ["lap", "trinh", "java"]
+ */
+public final class SearchTextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern HTML_TAGS = Pattern.compile("<[^>]*>");
+
+    private SearchTextNormalizer() {
+    }
+
+    /**
+     * Bỏ dấu và chuyển về chữ thường ("Đường" → "duong")
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return stripped.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Tách văn bản thành các token đã chuẩn hóa (bỏ thẻ HTML, token < 2 ký tự)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = fold(HTML_TAGS.matcher(text).replaceAll(" "));
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= 2) {
+                    tokens.add(folded.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
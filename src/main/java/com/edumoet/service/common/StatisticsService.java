@@ -7,11 +7,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.edumoet.entity.Tag;
 import com.edumoet.entity.User;
 import com.edumoet.repository.*;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -35,6 +34,12 @@ public class StatisticsService {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private DailyStatsService dailyStatsService;
+
+    @Autowired
+    private TagPopularityRanking tagPopularityRanking;
+
     /**
      * Thống kê tổng quan
      */
@@ -61,58 +66,41 @@ public class StatisticsService {
     }
 
     /**
-     * Thống kê theo thời gian
+     * Thống kê theo thời gian (đọc từ bộ đếm theo ngày, 1 query)
      */
     public Map<String, Object> getTimeBasedStatistics() {
         Map<String, Object> stats = new HashMap<>();
         
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime today = now.toLocalDate().atStartOfDay();
-        LocalDateTime thisWeek = now.minusDays(7);
-        LocalDateTime thisMonth = now.withDayOfMonth(1).toLocalDate().atStartOfDay();
-        
-        // Count by created_at date
-        long questionsToday = questionRepository.findAll().stream()
-                .filter(q -> q.getCreatedAt().isAfter(today))
-                .count();
-        long questionsThisWeek = questionRepository.findAll().stream()
-                .filter(q -> q.getCreatedAt().isAfter(thisWeek))
-                .count();
-        long questionsThisMonth = questionRepository.findAll().stream()
-                .filter(q -> q.getCreatedAt().isAfter(thisMonth))
-                .count();
-        
-        stats.put("questionsToday", questionsToday);
-        stats.put("questionsThisWeek", questionsThisWeek);
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.minusDays(6);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate from = weekStart.isBefore(monthStart) ? weekStart : monthStart;
+        
+        Map<DailyStatsService.Metric, TreeMap<LocalDate, Long>> daily = dailyStatsService.getDailyTotals(from);
+        TreeMap<LocalDate, Long> questions = daily.get(DailyStatsService.Metric.QUESTIONS);
+        TreeMap<LocalDate, Long> users = daily.get(DailyStatsService.Metric.USERS);
+        TreeMap<LocalDate, Long> answers = daily.get(DailyStatsService.Metric.ANSWERS);
+        
+        long questionsThisMonth = DailyStatsService.sum(questions, monthStart, today);
+        stats.put("questionsToday", DailyStatsService.sum(questions, today, today));
+        stats.put("questionsThisWeek", DailyStatsService.sum(questions, weekStart, today));
         stats.put("questionsThisMonth", questionsThisMonth);
         stats.put("newQuestionsThisMonth", questionsThisMonth);
         
-        long usersToday = userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(today))
-                .count();
-        long usersThisWeek = userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(thisWeek))
-                .count();
-        long usersThisMonth = userRepository.findAll().stream()
-                .filter(u -> u.getCreatedAt() != null && u.getCreatedAt().isAfter(thisMonth))
-                .count();
-        
-        stats.put("usersToday", usersToday);
-        stats.put("usersThisWeek", usersThisWeek);
+        long usersThisMonth = DailyStatsService.sum(users, monthStart, today);
+        stats.put("usersToday", DailyStatsService.sum(users, today, today));
+        stats.put("usersThisWeek", DailyStatsService.sum(users, weekStart, today));
         stats.put("usersThisMonth", usersThisMonth);
         stats.put("newUsersThisMonth", usersThisMonth);
         
-        long answersThisMonth = answerRepository.findAll().stream()
-                .filter(a -> a.getCreatedAt().isAfter(thisMonth))
-                .count();
-        stats.put("newAnswersThisMonth", answersThisMonth);
+        stats.put("newAnswersThisMonth", DailyStatsService.sum(answers, monthStart, today));
         stats.put("newCommentsThisMonth", 0L);
         
         return stats;
     }
 
     /**
-     * Thống kê theo tháng (6 tháng gần nhất)
+     * Thống kê theo tháng (6 tháng gần nhất, 1 query trên bộ đếm theo ngày)
      */
     public Map<String, Object> getMonthlyStatistics() {
         Map<String, Object> result = new HashMap<>();
@@ -122,31 +110,20 @@ public class StatisticsService {
         List<Long> answerCounts = new ArrayList<>();
         List<Long> userCounts = new ArrayList<>();
         
-        LocalDateTime now = LocalDateTime.now();
+        YearMonth current = YearMonth.now();
+        Map<DailyStatsService.Metric, TreeMap<LocalDate, Long>> daily =
+                dailyStatsService.getDailyTotals(current.minusMonths(5).atDay(1));
         
         for (int i = 5; i >= 0; i--) {
-            YearMonth yearMonth = YearMonth.from(now.minusMonths(i));
+            YearMonth yearMonth = current.minusMonths(i);
             months.add("T" + yearMonth.getMonthValue());
             
-            LocalDateTime startOfMonth = yearMonth.atDay(1).atStartOfDay();
-            LocalDateTime endOfMonth = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-            
-            long questions = questionRepository.findAll().stream()
-                    .filter(q -> q.getCreatedAt().isAfter(startOfMonth) && q.getCreatedAt().isBefore(endOfMonth))
-                    .count();
-            questionCounts.add(questions);
-            
-            long answers = answerRepository.findAll().stream()
-                    .filter(a -> a.getCreatedAt().isAfter(startOfMonth) && a.getCreatedAt().isBefore(endOfMonth))
-                    .count();
-            answerCounts.add(answers);
+            LocalDate startOfMonth = yearMonth.atDay(1);
+            LocalDate endOfMonth = yearMonth.atEndOfMonth();
             
-            long users = userRepository.findAll().stream()
-                    .filter(u -> u.getCreatedAt() != null && 
-                                 u.getCreatedAt().isAfter(startOfMonth) && 
-                                 u.getCreatedAt().isBefore(endOfMonth))
-                    .count();
-            userCounts.add(users);
+            questionCounts.add(DailyStatsService.sum(daily.get(DailyStatsService.Metric.QUESTIONS), startOfMonth, endOfMonth));
+            answerCounts.add(DailyStatsService.sum(daily.get(DailyStatsService.Metric.ANSWERS), startOfMonth, endOfMonth));
+            userCounts.add(DailyStatsService.sum(daily.get(DailyStatsService.Metric.USERS), startOfMonth, endOfMonth));
         }
         
         result.put("months", months);
@@ -181,24 +158,17 @@ public class StatisticsService {
     }
 
     /**
-     * Top tags by question count
+     * Top tags by question count (từ bảng xếp hạng trong bộ nhớ)
      */
     public List<Map<String, Object>> getTopTags(int limit) {
-        List<Tag> allTags = tagRepository.findAll();
-        
-        return allTags.stream()
-                .sorted((t1, t2) -> Integer.compare(
-                        t2.getQuestions() != null ? t2.getQuestions().size() : 0,
-                        t1.getQuestions() != null ? t1.getQuestions().size() : 0))
-                .limit(limit)
+        return tagPopularityRanking.top(limit).stream()
                 .map(tag -> {
                     Map<String, Object> tagMap = new HashMap<>();
                     tagMap.put("name", tag.getName());
-                    tagMap.put("count", tag.getQuestions() != null ? tag.getQuestions().size() : 0);
+                    tagMap.put("count", tag.getQuestionCount());
                     tagMap.put("description", tag.getDescription());
                     return tagMap;
                 })
                 .collect(Collectors.toList());
     }
 }
-
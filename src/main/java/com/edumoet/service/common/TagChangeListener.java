@@ -0,0 +1,87 @@
+package com.edumoet.service.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.edumoet.entity.Tag;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JPA entity listener: tag được tạo / đổi tên / đổi số câu hỏi / bị xóa
+ * → cập nhật TagPopularityRanking và TagSuggestionIndex sau khi transaction commit
+ */
+@Component
+public class TagChangeListener {
+
+    @Autowired
+    private TagPopularityRanking tagPopularityRanking;
+
+    @Autowired
+    private TagSuggestionIndex tagSuggestionIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Tag tag) {
+        // Chụp giá trị ngay, entity có thể đổi tiếp trước khi commit
+        TagPopularityRanking.RankedTag ranked = TagPopularityRanking.RankedTag.of(tag);
+        afterCommit(() -> apply(ranked));
+    }
+
+    /**
+     * Tag được tạo / đổi số câu hỏi bằng SQL (TagResolver, TagService.adjustQuestionCounts):
+     * không đi qua entity nên người gọi báo trực tiếp giá trị mới
+     */
+    public void afterCountsChanged(Collection<TagPopularityRanking.RankedTag> tags) {
+        if (!tags.isEmpty()) {
+            List<TagPopularityRanking.RankedTag> copy = new ArrayList<>(tags);
+            afterCommit(() -> copy.forEach(this::apply));
+        }
+    }
+
+    @PostRemove
+    public void afterRemove(Tag tag) {
+        Long tagId = tag.getId();
+        afterCommit(() -> {
+            tagPopularityRanking.onTagRemoved(tagId);
+            tagSuggestionIndex.onTagRemoved(tagId);
+        });
+    }
+
+    /**
+     * Tag bị xóa bằng SQL (gộp thẻ)
+     */
+    public void afterTagsRemoved(Collection<Long> tagIds) {
+        List<Long> copy = new ArrayList<>(tagIds);
+        afterCommit(() -> copy.forEach(tagId -> {
+            tagPopularityRanking.onTagRemoved(tagId);
+            tagSuggestionIndex.onTagRemoved(tagId);
+        }));
+    }
+
+    private void apply(TagPopularityRanking.RankedTag tag) {
+        tagPopularityRanking.onTagChanged(tag);
+        tagSuggestionIndex.onTagChanged(tag.getId(), tag.getName(), tag.getQuestionCount());
+    }
+
+    // Chạy action sau khi transaction hiện tại commit (ngay lập tức nếu không có transaction)
+    void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.edumoet.entity.Tag;
+import com.edumoet.repository.TagRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tag Popularity Ranking - Top-K tags theo số câu hỏi, giữ trong bộ nhớ
+ *
+ * - Nạp từ DB bằng 1 query ORDER BY question_count (có index), chỉ K+1 dòng
+ * - Mỗi lần số câu hỏi của tag thay đổi (TagChangeListener, sau commit) → cập nhật tại chỗ
+ * - Khi 1 tag trong top tụt xuống dưới ngưỡng, hoặc có cập nhật hàng loạt bằng SQL → đánh dấu cũ, nạp lại khi đọc
+ * - Dashboard, trang /tags (sắp xếp phổ biến) và sidebar đọc snapshot, không đụng tới bảng question_tags
+ */
+@Service
+public class TagPopularityRanking {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagPopularityRanking.class);
+
+    private static final Comparator<RankedTag> ORDER = Comparator
+            .comparingInt(RankedTag::getQuestionCount).reversed()
+            .thenComparing(RankedTag::getName);
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Value("${tags.ranking.capacity:200}")
+    private int capacity;
+
+    // Snapshot bất biến, thay thế nguyên khối (copy-on-write)
+    private volatile List<RankedTag> snapshot = Collections.emptyList();
+
+    // true nếu snapshot chứa toàn bộ tags (không có tag nào ngoài top bị bỏ sót)
+    private volatile boolean complete;
+
+    private volatile boolean stale = true;
+
+    /**
+     * Tag rút gọn cho bảng xếp hạng (getter trùng tên với entity Tag)
+     */
+    public static class RankedTag {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final int questionCount;
+
+        public RankedTag(Long id, String name, String description, int questionCount) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.questionCount = questionCount;
+        }
+
+        static RankedTag of(Tag tag) {
+            return new RankedTag(tag.getId(), tag.getName(), tag.getDescription(),
+                    tag.getQuestionCount() != null ? tag.getQuestionCount() : 0);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getQuestionCount() {
+            return questionCount;
+        }
+    }
+
+    /**
+     * Sức chứa của bảng xếp hạng (số tag tối đa phục vụ được từ bộ nhớ)
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * limit tag phổ biến nhất (limit > capacity bị cắt về capacity)
+     */
+    public List<RankedTag> top(int limit) {
+        return range(0, limit);
+    }
+
+    /**
+     * Các tag ở vị trí [offset, offset + limit) trong bảng xếp hạng
+     */
+    public List<RankedTag> range(int offset, int limit) {
+        List<RankedTag> current = current();
+        int from = Math.min(Math.max(offset, 0), current.size());
+        int to = Math.min(from + Math.max(limit, 0), current.size());
+        return current.subList(from, to);
+    }
+
+    /**
+     * Đánh dấu cần nạp lại (sau khi số câu hỏi bị sửa hàng loạt bằng SQL); chờ transaction commit nếu có
+     */
+    public void invalidate() {
+        afterCommit(() -> stale = true);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Gọi từ TagChangeListener sau khi transaction commit
+    synchronized void onTagChanged(RankedTag tag) {
+        if (stale) {
+            return;
+        }
+        List<RankedTag> next = new ArrayList<>(snapshot);
+        boolean wasRanked = next.removeIf(t -> t.getId().equals(tag.getId()));
+        boolean full = !complete && next.size() + (wasRanked ? 1 : 0) >= capacity;
+        RankedTag last = next.isEmpty() ? null : next.get(next.size() - 1);
+
+        if (full && last != null && ORDER.compare(tag, last) > 0) {
+            if (wasRanked) {
+                // Tụt khỏi vùng đã biết: có thể bị tag ngoài top vượt qua
+                stale = true;
+            }
+            return;
+        }
+        int pos = Collections.binarySearch(next, tag, ORDER);
+        next.add(pos < 0 ? -pos - 1 : pos, tag);
+        if (next.size() > capacity) {
+            next.remove(next.size() - 1);
+            complete = false;
+        }
+        snapshot = Collections.unmodifiableList(next);
+    }
+
+    synchronized void onTagRemoved(Long tagId) {
+        if (stale) {
+            return;
+        }
+        List<RankedTag> next = new ArrayList<>(snapshot);
+        if (next.removeIf(t -> t.getId().equals(tagId))) {
+            snapshot = Collections.unmodifiableList(next);
+            if (!complete) {
+                // Còn trống 1 chỗ, tag kế tiếp chỉ có trong DB
+                stale = true;
+            }
+        }
+    }
+
+    /**
+     * Nạp lại định kỳ để tự sửa các thay đổi không đi qua entity
+     */
+    @Scheduled(fixedDelayString = "${tags.ranking.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        stale = true;
+    }
+
+    private List<RankedTag> current() {
+        if (stale) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    private synchronized void reload() {
+        if (!stale) {
+            return;
+        }
+        // Hạ cờ trước khi đọc: thay đổi xảy ra trong lúc đọc sẽ bật lại cờ
+        stale = false;
+        try {
+            List<Tag> rows = tagRepository.findTopByQuestionCount(PageRequest.of(0, capacity + 1));
+            complete = rows.size() <= capacity;
+            snapshot = Collections.unmodifiableList(rows.stream()
+                    .limit(capacity)
+                    .map(RankedTag::of)
+                    .sorted(ORDER)
+                    .collect(Collectors.toList()));
+        } catch (RuntimeException e) {
+            stale = true;
+            logger.error("Failed to load tag popularity ranking", e);
+            throw e;
+        }
+    }
+}
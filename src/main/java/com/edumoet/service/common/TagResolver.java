@@ -0,0 +1,203 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.edumoet.entity.Tag;
+import com.edumoet.repository.TagRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tag Resolver - Đổi danh sách tên tag thành entity Tag với số round trip cố định
+ *
+ * 1. Chuẩn hóa tên (trim, chữ thường, bỏ trùng)
+ * 2. Tên đã biết → id lấy từ cache name→id; tên chưa biết → 1 query IN
+ * 3. Tên chưa có trong DB → 1 câu INSERT nhiều dòng; nếu người khác vừa tạo cùng tên (trùng khóa unique)
+ *    thì đọc lại và thử tiếp với phần còn thiếu
+ * 4. Nạp entity theo id (1 query)
+ */
+@Component
+public class TagResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagResolver.class);
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private TagChangeListener tagChangeListener;
+
+    @Value("${tags.resolver.cache-size:10000}")
+    private int cacheSize;
+
+    private final ConcurrentHashMap<String, Long> idsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Chuẩn hóa tên tag: trim + chữ thường, bỏ tên rỗng và tên trùng (giữ thứ tự)
+     */
+    public static Set<String> normalize(Collection<String> tagNames) {
+        Set<String> names = new LinkedHashSet<>();
+        if (tagNames != null) {
+            for (String name : tagNames) {
+                String normalized = name != null ? name.trim().toLowerCase(Locale.ROOT) : "";
+                if (!normalized.isEmpty()) {
+                    names.add(normalized);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Tìm hoặc tạo các tag (chạy trong transaction của người gọi)
+     */
+    public Set<Tag> resolve(Collection<String> tagNames) {
+        Set<String> names = normalize(tagNames);
+        if (names.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            Long id = idsByName.get(name);
+            if (id != null) {
+                ids.put(name, id);
+            } else {
+                unknown.add(name);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            ids.putAll(lookupIds(unknown));
+            insertMissing(names, ids);
+        }
+
+        Set<Tag> tags = new HashSet<>();
+        List<String> stale = new ArrayList<>();
+        collect(tagRepository.findAllById(ids.values()), ids, tags, stale);
+        if (!stale.isEmpty()) {
+            // Id trong cache đã bị xóa / đổi tên: phân giải lại các tên đó một lần, không qua cache
+            Map<String, Long> retried = lookupIds(stale);
+            insertMissing(new LinkedHashSet<>(stale), retried);
+            collect(tagRepository.findAllById(retried.values()), retried, tags, new ArrayList<>());
+        }
+        return tags;
+    }
+
+    /**
+     * Giữ các tag có tên khớp với tên được yêu cầu; tên nào không khớp (cache cũ) được đưa vào stale
+     */
+    private void collect(List<Tag> loaded, Map<String, Long> ids, Set<Tag> into, List<String> stale) {
+        Map<Long, Tag> byId = new HashMap<>();
+        loaded.forEach(t -> byId.put(t.getId(), t));
+        ids.forEach((name, id) -> {
+            Tag tag = byId.get(id);
+            if (tag != null && name.equals(tag.getName().toLowerCase(Locale.ROOT))) {
+                into.add(tag);
+            } else {
+                evict(name, id);
+                stale.add(name);
+            }
+        });
+    }
+
+    private void evict(String name, Long id) {
+        idsByName.remove(name, id);
+    }
+
+    private Map<String, Long> lookupIds(Collection<String> names) {
+        Map<String, Long> found = new HashMap<>();
+        if (names.isEmpty()) {
+            return found;
+        }
+        jdbc.query("SELECT id, name FROM tags WHERE name IN (:names)",
+                new MapSqlParameterSource("names", names),
+                rs -> {
+                    String name = rs.getString("name").toLowerCase(Locale.ROOT);
+                    long id = rs.getLong("id");
+                    found.put(name, id);
+                    cache(name, id);
+                });
+        return found;
+    }
+
+    /**
+     * INSERT 1 lần cho mọi tên còn thiếu; va chạm unique (người khác vừa tạo) → đọc lại rồi thử tiếp
+     */
+    private void insertMissing(Set<String> names, Map<String, Long> ids) {
+        for (int attempt = 1; ; attempt++) {
+            List<String> missing = new ArrayList<>();
+            for (String name : names) {
+                if (!ids.containsKey(name)) {
+                    missing.add(name);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            try {
+                ids.putAll(insert(missing));
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_INSERT_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Concurrent tag insert for {}, re-reading (attempt {})", missing, attempt);
+                ids.putAll(lookupIds(missing));
+            }
+        }
+    }
+
+    private Map<String, Long> insert(List<String> names) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO tags (name, question_count, created_at) OUTPUT inserted.id, inserted.name VALUES ");
+        MapSqlParameterSource params = new MapSqlParameterSource("now", Timestamp.valueOf(LocalDateTime.now()));
+        for (int i = 0; i < names.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append("(:n").append(i).append(", 0, :now)");
+            params.addValue("n" + i, names.get(i));
+        }
+        Map<String, Long> inserted = new HashMap<>();
+        List<TagPopularityRanking.RankedTag> created = new ArrayList<>();
+        jdbc.query(sql.toString(), params, rs -> {
+            String name = rs.getString("name");
+            long id = rs.getLong("id");
+            inserted.put(name, id);
+            created.add(new TagPopularityRanking.RankedTag(id, name, null, 0));
+            cache(name, id);
+        });
+        // INSERT bằng SQL không đi qua entity listener
+        tagChangeListener.afterCountsChanged(created);
+        return inserted;
+    }
+
+    private void cache(String name, Long id) {
+        if (idsByName.size() >= cacheSize) {
+            // Giới hạn bộ nhớ: xóa sạch, các tên hay dùng sẽ được nạp lại ngay
+            idsByName.clear();
+        }
+        idsByName.put(name, id);
+    }
+}
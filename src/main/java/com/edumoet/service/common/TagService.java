@@ -2,14 +2,20 @@ package com.edumoet.service.common;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.edumoet.entity.Tag;
 import com.edumoet.repository.TagRepository;
 
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -18,9 +24,32 @@ import java.util.Set;
 @Transactional
 public class TagService {
 
+    // Dòng trả về từ OUTPUT inserted.id, inserted.name, inserted.description, inserted.question_count
+    private static final RowMapper<TagPopularityRanking.RankedTag> RANKED_TAG_MAPPER = (rs, rowNum) ->
+            new TagPopularityRanking.RankedTag(rs.getLong("id"), rs.getString("name"),
+                    rs.getString("description"), rs.getInt("question_count"));
+
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private TagPopularityRanking tagPopularityRanking;
+
+    @Autowired
+    private TagResolver tagResolver;
+
+    @Autowired
+    private TagChangeListener tagChangeListener;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private QuestionFeedCache questionFeedCache;
+
+    @Autowired
+    private RelatedQuestionIndex relatedQuestionIndex;
+
     public Tag createTag(Tag tag) {
         tag.setQuestionCount(0);
         return tagRepository.save(tag);
@@ -39,14 +68,22 @@ public class TagService {
     }
     
     /**
-     * Lấy tất cả tags không phân trang (dùng cho autocomplete)
+     * Tags theo độ phổ biến: các trang đầu đọc từ TagPopularityRanking, trang sâu hơn mới query DB
      */
-    public List<Tag> getAllTagsNoPaging() {
-        return tagRepository.findAll();
+    public Page<TagPopularityRanking.RankedTag> getTagsByPopularity(Pageable pageable) {
+        if (pageable.getOffset() + pageable.getPageSize() <= tagPopularityRanking.getCapacity()) {
+            List<TagPopularityRanking.RankedTag> content =
+                    tagPopularityRanking.range((int) pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(content, pageable, tagRepository.count());
+        }
+        return tagRepository.findAllByOrderByQuestionCountDesc(pageable).map(TagPopularityRanking.RankedTag::of);
     }
 
-    public Page<Tag> getTagsByPopularity(Pageable pageable) {
-        return tagRepository.findAllByOrderByQuestionCountDesc(pageable);
+    /**
+     * limit tags phổ biến nhất (sidebar, dashboard)
+     */
+    public List<TagPopularityRanking.RankedTag> getPopularTags(int limit) {
+        return tagPopularityRanking.top(limit);
     }
 
     public Page<Tag> getTagsByName(Pageable pageable) {
@@ -57,23 +94,27 @@ public class TagService {
         return tagRepository.searchTags(search, pageable);
     }
 
+    /**
+     * Tìm hoặc tạo tags theo tên (số query cố định, an toàn khi 2 người cùng tạo 1 tag mới)
+     */
     public Set<Tag> getOrCreateTags(Set<String> tagNames) {
-        Set<Tag> tags = new HashSet<>();
-        for (String name : tagNames) {
-            // Normalize tag name by trimming and converting to lowercase
-            String normalizedName = name.trim().toLowerCase();
-            if (!normalizedName.isEmpty()) {
-                Tag tag = tagRepository.findByName(normalizedName)
-                    .orElseGet(() -> {
-                        Tag newTag = new Tag();
-                        newTag.setName(normalizedName);
-                        newTag.setQuestionCount(0);
-                        return tagRepository.save(newTag);
-                    });
-                tags.add(tag);
-            }
+        return tagResolver.resolve(tagNames);
+    }
+
+    /**
+     * Cộng delta vào question_count của các tag bằng 1 câu UPDATE (không đọc-sửa-ghi, không âm)
+     */
+    public void adjustQuestionCounts(Collection<Long> tagIds, int delta) {
+        if (tagIds == null || tagIds.isEmpty() || delta == 0) {
+            return;
         }
-        return tags;
+        List<TagPopularityRanking.RankedTag> updated = jdbc.query(
+                "UPDATE tags SET question_count = CASE WHEN question_count + :delta < 0 THEN 0 " +
+                "ELSE question_count + :delta END " +
+                "OUTPUT inserted.id, inserted.name, inserted.description, inserted.question_count " +
+                "WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", tagIds).addValue("delta", delta), RANKED_TAG_MAPPER);
+        tagChangeListener.afterCountsChanged(updated);
     }
 
     public Tag updateTag(Tag tag) {
@@ -105,28 +146,85 @@ public class TagService {
      */
     @Transactional
     public void mergeTags(Long sourceTagId, Long targetTagId) {
-        if (sourceTagId.equals(targetTagId)) {
+        mergeTags(Collections.singletonList(sourceTagId), targetTagId);
+    }
+
+    /**
+     * Gộp nhiều thẻ vào targetTag bằng SQL theo tập hợp (không nạp câu hỏi nào vào bộ nhớ):
+     * 1. INSERT ... SELECT liên kết câu hỏi ↔ thẻ đích, bỏ qua câu hỏi đã có thẻ đích
+     * 2. Xóa liên kết của các thẻ nguồn
+     * 3. Đếm lại question_count của thẻ đích bằng COUNT(*)
+     * 4. Xóa các thẻ nguồn
+     *
+     * @return số liên kết câu hỏi ↔ thẻ nguồn đã được chuyển
+     */
+    @Transactional
+    public int mergeTags(Collection<Long> sourceTagIds, Long targetTagId) {
+        Set<Long> sources = new LinkedHashSet<>(sourceTagIds);
+        sources.remove(null);
+        if (sources.remove(targetTagId) && sources.isEmpty()) {
             throw new RuntimeException("Không thể gộp thẻ với chính nó");
         }
-        
-        Tag sourceTag = tagRepository.findById(sourceTagId)
-                .orElseThrow(() -> new RuntimeException("Source tag not found"));
-        Tag targetTag = tagRepository.findById(targetTagId)
-                .orElseThrow(() -> new RuntimeException("Target tag not found"));
-        
-        // Di chuyển tất cả questions từ source sang target
-        sourceTag.getQuestions().forEach(question -> {
-            question.getTags().remove(sourceTag);
-            question.getTags().add(targetTag);
-        });
-        
-        // Cập nhật question count
-        targetTag.setQuestionCount(targetTag.getQuestionCount() + sourceTag.getQuestionCount());
-        sourceTag.setQuestionCount(0);
-        
-        // Xóa source tag
-        tagRepository.delete(sourceTag);
-        tagRepository.save(targetTag);
+        if (sources.isEmpty()) {
+            throw new RuntimeException("Chưa chọn thẻ nguồn");
+        }
+        if (!tagRepository.existsById(targetTagId)) {
+            throw new RuntimeException("Target tag not found");
+        }
+        if (tagRepository.countByIdIn(sources) != sources.size()) {
+            throw new RuntimeException("Source tag not found");
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("sources", sources).addValue("target", targetTagId);
+        jdbc.update("INSERT INTO question_tags (question_id, tag_id) " +
+                    "SELECT DISTINCT qt.question_id, :target FROM question_tags qt " +
+                    "WHERE qt.tag_id IN (:sources) AND NOT EXISTS " +
+                    "(SELECT 1 FROM question_tags x WHERE x.question_id = qt.question_id AND x.tag_id = :target)", params);
+        int moved = jdbc.update("DELETE FROM question_tags WHERE tag_id IN (:sources)", params);
+        List<TagPopularityRanking.RankedTag> target = jdbc.query(
+                "UPDATE tags SET question_count = (SELECT COUNT(*) FROM question_tags WHERE tag_id = :target) " +
+                "OUTPUT inserted.id, inserted.name, inserted.description, inserted.question_count " +
+                "WHERE id = :target", params, RANKED_TAG_MAPPER);
+        jdbc.update("DELETE FROM tags WHERE id IN (:sources)", params);
+
+        tagChangeListener.afterTagsRemoved(sources);
+        tagChangeListener.afterCountsChanged(target);
+        // Danh sách câu hỏi đang cache còn hiển thị tên thẻ cũ; tag của các câu hỏi đã đổi
+        tagChangeListener.afterCommit(questionFeedCache::invalidateAll);
+        tagChangeListener.afterCommit(relatedQuestionIndex::requestRebuild);
+        return moved;
+    }
+
+    /**
+     * Đổi tên / mô tả thẻ; đổi sang tên của 1 thẻ khác đã có = gộp vào thẻ đó
+     *
+     * @return thẻ mang tên mới (thẻ đích nếu đã gộp)
+     */
+    @Transactional
+    public Tag renameTag(Long tagId, String newName, String description) {
+        Tag tag = tagRepository.findById(tagId)
+                .orElseThrow(() -> new RuntimeException("Tag not found"));
+        Set<String> normalized = TagResolver.normalize(Collections.singletonList(newName));
+        if (normalized.isEmpty()) {
+            throw new RuntimeException("Tên thẻ không được để trống");
+        }
+        String name = normalized.iterator().next();
+
+        Optional<Tag> existing = tagRepository.findByName(name);
+        if (existing.isPresent() && !existing.get().getId().equals(tagId)) {
+            Tag target = existing.get();
+            mergeTags(Collections.singletonList(tagId), target.getId());
+            return target;
+        }
+
+        boolean renamed = !name.equals(tag.getName());
+        tag.setName(name);
+        tag.setDescription(description);
+        Tag saved = tagRepository.save(tag);
+        if (renamed) {
+            tagChangeListener.afterCommit(questionFeedCache::invalidateAll);
+        }
+        return saved;
     }
     
     /**
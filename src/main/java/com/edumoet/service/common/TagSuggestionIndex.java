@@ -0,0 +1,349 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.edumoet.repository.TagRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tag Suggestion Index - Gợi ý tag theo tiền tố bằng prefix trie trong bộ nhớ
+ *
+ * - Khóa là tên tag đã bỏ dấu (SearchTextNormalizer.fold), thêm các phần sau dấu '-', '_', '.', ' '
+ *   ("spring-boot" tìm được bằng "spr" và "boo")
+ * - Mỗi nút giữ sẵn top-K tag theo questionCount của cả nhánh → tra cứu = đi hết tiền tố rồi đọc danh sách
+ * - Cập nhật tại chỗ khi tag được tạo / đổi số câu hỏi / đổi tên / xóa (TagChangeListener, sau commit);
+ *   dựng lại toàn bộ khi khởi động và định kỳ
+ * - Đọc không khóa: con của nút là ConcurrentHashMap, top-K là danh sách bất biến thay nguyên khối
+ */
+@Service
+public class TagSuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TagSuggestionIndex.class);
+
+    private static final Comparator<Suggestion> ORDER = Comparator
+            .comparingInt(Suggestion::getQuestionCount).reversed()
+            .thenComparing(Suggestion::getName);
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Value("${tags.suggest.top-k:20}")
+    private int topK;
+
+    private volatile Node root = new Node();
+
+    private final Object rebuildLock = new Object();
+
+    // Ghi (cập nhật, dựng lại) chạy tuần tự dưới lock của đối tượng này
+    private final Map<Long, Suggestion> byId = new HashMap<>();
+
+    // Thay đổi đến trong lúc đang dựng lại, được áp dụng lại lên trie mới
+    private List<Suggestion> replayChanges;
+    private List<Long> replayRemovals;
+
+    /**
+     * 1 gợi ý: chỉ tên và số câu hỏi được trả về client
+     */
+    public static class Suggestion {
+        private final Long id;
+        private final String name;
+        private final int questionCount;
+
+        public Suggestion(Long id, String name, int questionCount) {
+            this.id = id;
+            this.name = name;
+            this.questionCount = questionCount;
+        }
+
+        Long id() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQuestionCount() {
+            return questionCount;
+        }
+    }
+
+    private static class Node {
+        final ConcurrentHashMap<Character, Node> children = new ConcurrentHashMap<>();
+        // Tag có khóa kết thúc tại nút này
+        final Set<Long> terminal = ConcurrentHashMap.newKeySet();
+        volatile List<Suggestion> top = Collections.emptyList();
+    }
+
+    /**
+     * Tối đa limit tag có khóa bắt đầu bằng prefix, xếp theo số câu hỏi (prefix rỗng → tag phổ biến nhất)
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Node node = root;
+        String key = SearchTextNormalizer.fold(prefix != null ? prefix.trim() : "");
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Suggestion> top = node.top;
+        return top.subList(0, Math.min(Math.max(limit, 0), top.size()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Initial tag suggestion index build failed", e);
+        }
+    }
+
+    /**
+     * Dựng lại định kỳ để tự sửa các thay đổi không đi qua entity (cập nhật hàng loạt bằng SQL)
+     */
+    @Scheduled(fixedDelayString = "${tags.suggest.rebuild-interval-ms:600000}", initialDelayString = "${tags.suggest.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Tag suggestion index rebuild failed", e);
+        }
+    }
+
+    /**
+     * Dựng trie mới từ bảng tags (1 query chỉ lấy id, name, question_count) rồi thay thế trie cũ
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                replayChanges = new ArrayList<>();
+                replayRemovals = new ArrayList<>();
+            }
+            List<Suggestion> all = new ArrayList<>();
+            try {
+                for (Object[] row : tagRepository.findSuggestionRows()) {
+                    Number count = (Number) row[2];
+                    all.add(new Suggestion((Long) row[0], (String) row[1], count != null ? count.intValue() : 0));
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    replayChanges = null;
+                    replayRemovals = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                Node fresh = new Node();
+                Map<Long, Suggestion> freshById = new HashMap<>();
+                for (Suggestion s : all) {
+                    freshById.put(s.id(), s);
+                    for (String key : keys(s.getName())) {
+                        insertKey(fresh, key, s.id());
+                    }
+                }
+                fillTop(fresh, freshById);
+
+                byId.clear();
+                byId.putAll(freshById);
+                root = fresh;
+                List<Suggestion> changes = replayChanges;
+                List<Long> removals = replayRemovals;
+                replayChanges = null;
+                replayRemovals = null;
+                changes.forEach(this::applyChange);
+                removals.forEach(this::applyRemoval);
+                logger.info("Tag suggestion index built with {} tags", byId.size());
+            }
+        }
+    }
+
+    // Gọi từ TagChangeListener sau khi transaction commit
+    synchronized void onTagChanged(Long id, String name, int questionCount) {
+        Suggestion s = new Suggestion(id, name, questionCount);
+        if (replayChanges != null) {
+            replayChanges.add(s);
+        }
+        applyChange(s);
+    }
+
+    synchronized void onTagRemoved(Long id) {
+        if (replayRemovals != null) {
+            replayRemovals.add(id);
+        }
+        applyRemoval(id);
+    }
+
+    // ================== CẬP NHẬT TẠI CHỖ ==================
+
+    private void applyChange(Suggestion s) {
+        Suggestion old = byId.put(s.id(), s);
+        Set<String> newKeys = keys(s.getName());
+        if (old != null && !old.getName().equals(s.getName())) {
+            for (String key : keys(old.getName())) {
+                if (!newKeys.contains(key)) {
+                    detach(key, old.id());
+                }
+            }
+        }
+        for (String key : newKeys) {
+            Node node = offer(root, s);
+            for (int i = 0; i < key.length(); i++) {
+                node = offer(node.children.computeIfAbsent(key.charAt(i), c -> new Node()), s);
+            }
+            node.terminal.add(s.id());
+        }
+    }
+
+    private void applyRemoval(Long id) {
+        Suggestion old = byId.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String key : keys(old.getName())) {
+            detach(key, id);
+        }
+    }
+
+    /**
+     * Đưa s vào top-K của nút; nếu s vốn trong top mà bị tụt xuống cuối thì tính lại từ nhánh
+     */
+    private Node offer(Node node, Suggestion s) {
+        List<Suggestion> current = node.top;
+        List<Suggestion> next = new ArrayList<>(current);
+        boolean wasIn = next.removeIf(t -> t.id().equals(s.id()));
+        int pos = Collections.binarySearch(next, s, ORDER);
+        pos = pos < 0 ? -pos - 1 : pos;
+        if (wasIn && current.size() >= topK && pos == next.size()) {
+            // Có thể có tag khác trong nhánh tốt hơn s mà chưa nằm trong top
+            node.top = collectTop(node);
+            return node;
+        }
+        if (pos < topK) {
+            next.add(pos, s);
+            if (next.size() > topK) {
+                next.remove(next.size() - 1);
+            }
+            node.top = Collections.unmodifiableList(next);
+        }
+        return node;
+    }
+
+    /**
+     * Gỡ khóa key của tag id: xóa khỏi nút cuối và khỏi top-K các nút trên đường đi
+     */
+    private void detach(String key, Long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+            if (node != null) {
+                path.add(node);
+            }
+        }
+        if (node != null) {
+            node.terminal.remove(id);
+        }
+        // Từ dưới lên để nút cha tính lại từ con đã đúng
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node n = path.get(i);
+            if (n.top.stream().anyMatch(t -> t.id().equals(id))) {
+                n.top = collectTop(n);
+            }
+        }
+    }
+
+    // ================== DỰNG TỪ ĐẦU ==================
+
+    private static void insertKey(Node root, String key, Long id) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.terminal.add(id);
+    }
+
+    /**
+     * Top-K của mọi nút bằng 1 lượt duyệt sau (post-order): gộp top-K của các con + tag kết thúc tại nút
+     */
+    private void fillTop(Node node, Map<Long, Suggestion> lookup) {
+        Map<Long, Suggestion> candidates = new HashMap<>();
+        for (Long id : node.terminal) {
+            Suggestion s = lookup.get(id);
+            if (s != null) {
+                candidates.put(id, s);
+            }
+        }
+        for (Node child : node.children.values()) {
+            fillTop(child, lookup);
+            child.top.forEach(s -> candidates.put(s.id(), s));
+        }
+        node.top = best(candidates.values());
+    }
+
+    /**
+     * Tính lại top-K của 1 nút từ toàn bộ nhánh (dùng khi 1 tag rời khỏi top-K đầy)
+     */
+    private List<Suggestion> collectTop(Node node) {
+        Map<Long, Suggestion> candidates = new HashMap<>();
+        collect(node, candidates);
+        return best(candidates.values());
+    }
+
+    private void collect(Node node, Map<Long, Suggestion> into) {
+        for (Long id : node.terminal) {
+            Suggestion s = byId.get(id);
+            if (s != null) {
+                into.put(id, s);
+            }
+        }
+        for (Node child : node.children.values()) {
+            collect(child, into);
+        }
+    }
+
+    private List<Suggestion> best(Collection<Suggestion> candidates) {
+        List<Suggestion> sorted = new ArrayList<>(candidates);
+        sorted.sort(ORDER);
+        return Collections.unmodifiableList(new ArrayList<>(sorted.subList(0, Math.min(topK, sorted.size()))));
+    }
+
+    /**
+     * Các khóa của 1 tên tag: cả tên và phần đứng sau mỗi dấu phân cách
+     */
+    static Set<String> keys(String name) {
+        Set<String> keys = new LinkedHashSet<>();
+        String folded = SearchTextNormalizer.fold(name);
+        if (folded.isEmpty()) {
+            return keys;
+        }
+        keys.add(folded);
+        for (int i = 0; i < folded.length() - 1; i++) {
+            char c = folded.charAt(i);
+            if (c == '-' || c == '_' || c == '.' || c == ' ') {
+                keys.add(folded.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+}
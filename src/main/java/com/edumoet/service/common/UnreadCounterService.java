@@ -0,0 +1,187 @@
+package com.edumoet.service.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.edumoet.repository.MessageRepository;
+import com.edumoet.repository.NotificationRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread Counter Service - Số thông báo / tin nhắn chưa đọc của từng user, giữ trong bộ nhớ
+ *
+ * - Nạp lười bằng 2 query COUNT khi được hỏi lần đầu, nạp lại sau ttl (tự sửa sai lệch nhỏ)
+ * - Gửi / đọc / xóa → cộng trừ tại chỗ sau khi transaction commit
+ * - Mỗi lần thay đổi, đẩy số mới qua STOMP (/user/queue/unread) nếu user đang kết nối
+ * - Badge trên navbar và /notifications/api/unread-count chỉ tra map, không đếm lại bảng
+ */
+@Service
+public class UnreadCounterService {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ClusterMessenger clusterMessenger;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Value("${unread.cache-size:50000}")
+    private int cacheSize;
+
+    @Value("${unread.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<String, Entry> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Số chưa đọc của 1 user (gửi cho client dưới dạng JSON)
+     */
+    public static class Counts {
+        private final long notifications;
+        private final long messages;
+
+        public Counts(long notifications, long messages) {
+            this.notifications = notifications;
+            this.messages = messages;
+        }
+
+        public long getNotifications() {
+            return notifications;
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+    }
+
+    private static class Entry {
+        final AtomicLong notifications;
+        final AtomicLong messages;
+        final long loadedAt = System.currentTimeMillis();
+
+        Entry(long notifications, long messages) {
+            this.notifications = new AtomicLong(notifications);
+            this.messages = new AtomicLong(messages);
+        }
+
+        Counts snapshot() {
+            return new Counts(notifications.get(), messages.get());
+        }
+    }
+
+    public Counts get(String username) {
+        return entry(username).snapshot();
+    }
+
+    public long getNotifications(String username) {
+        return entry(username).notifications.get();
+    }
+
+    public long getMessages(String username) {
+        return entry(username).messages.get();
+    }
+
+    /**
+     * Số thông báo chưa đọc của user thay đổi delta (áp dụng khi transaction commit)
+     */
+    public void notificationsChanged(String username, long delta) {
+        afterCommit(() -> {
+            Entry entry = counters.get(username);
+            if (entry != null) {
+                add(entry.notifications, delta);
+            }
+            push(username);
+        });
+    }
+
+    /**
+     * Mỗi user trong danh sách có thêm 1 thông báo (broadcast); chỉ đẩy cho user đang online
+     */
+    public void notificationsAdded(Collection<String> usernames) {
+        List<String> copy = new ArrayList<>(usernames);
+        afterCommit(() -> copy.forEach(username -> {
+            Entry entry = counters.get(username);
+            if (entry != null) {
+                add(entry.notifications, 1);
+            }
+            push(username);
+        }));
+    }
+
+    /**
+     * Mốc đã đọc của user được dời lên: đếm lại từ DB (thông báo mới hơn mốc vẫn chưa đọc)
+     */
+    public void notificationsCleared(String username) {
+        afterCommit(() -> {
+            counters.remove(username);
+            push(username);
+        });
+    }
+
+    public void messagesChanged(String username, long delta) {
+        afterCommit(() -> {
+            Entry entry = counters.get(username);
+            if (entry != null) {
+                add(entry.messages, delta);
+            }
+            push(username);
+        });
+    }
+
+    /**
+     * Bỏ số đã nhớ của user (lần hỏi sau sẽ đếm lại từ DB)
+     */
+    public void evict(String username) {
+        counters.remove(username);
+    }
+
+    private Entry entry(String username) {
+        Entry entry = counters.get(username);
+        if (entry == null || System.currentTimeMillis() - entry.loadedAt > ttlMs) {
+            if (counters.size() >= cacheSize) {
+                // Giới hạn bộ nhớ: xóa sạch, user đang hoạt động sẽ được nạp lại ngay
+                counters.clear();
+            }
+            entry = new Entry(notificationRepository.countUnreadByUsername(username),
+                    messageRepository.countByReceiverUsernameAndIsReadFalse(username));
+            counters.put(username, entry);
+        }
+        return entry;
+    }
+
+    private static void add(AtomicLong counter, long delta) {
+        counter.updateAndGet(v -> Math.max(0, v + delta));
+    }
+
+    private void push(String username) {
+        if (presenceService.isOnline(username)) {
+            clusterMessenger.sendToUser(username, "/queue/unread", get(username));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.edumoet.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.edumoet.entity.User;
+import com.edumoet.entity.UserPurgeJob;
+import com.edumoet.repository.UserPurgeJobRepository;
+import com.edumoet.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * User Purge Service - Xóa dữ liệu người dùng ở chế độ nền
+ *
+ * - Admin chỉ tạo job (và khóa tài khoản), request trả về ngay
+ * - Mỗi bước xóa theo lô TOP (n) bằng câu SQL set-based, mỗi lô 1 transaction ngắn
+ * - Số câu hỏi của tag / số câu trả lời / số vote được trừ gộp theo lô
+ * - Tiến độ (phase, deleted_rows) ghi cùng transaction với lô nên job chạy tiếp được sau khi crash
+ */
+@Service
+public class UserPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPurgeService.class);
+
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private static final List<String> UNFINISHED = List.of(PENDING, RUNNING);
+
+    /**
+     * Các bước theo thứ tự phụ thuộc khóa ngoại; users bị xóa ở bước cuối
+     */
+    public enum Phase {
+        NOTIFICATIONS,
+        ACTIVITY_LOGS,
+        MESSAGES,
+        REPORTS,
+        VOTES,
+        QUESTIONS,
+        ANSWERS,
+        IMAGES,
+        FOLLOWS,
+        CHATBOT,
+        USER,
+        DONE
+    }
+
+    // Single-statement phases: each statement is repeated until it touches no rows
+    private static final Map<Phase, List<String>> SIMPLE_PHASES = new HashMap<>();
+
+    static {
+        SIMPLE_PHASES.put(Phase.NOTIFICATIONS, List.of(
+                "DELETE TOP (:limit) FROM notifications WHERE user_id = :userId",
+                "DELETE TOP (:limit) FROM notification_read_state WHERE user_id = :userId",
+                "DELETE TOP (:limit) FROM notifications_archive WHERE user_id = :userId",
+                "UPDATE TOP (:limit) notifications SET sender_id = NULL WHERE sender_id = :userId"));
+        SIMPLE_PHASES.put(Phase.ACTIVITY_LOGS, List.of(
+                "DELETE TOP (:limit) FROM activity_logs WHERE user_id = :userId"));
+        SIMPLE_PHASES.put(Phase.REPORTS, List.of(
+                "DELETE TOP (:limit) FROM reports WHERE reporter_id = :userId",
+                "UPDATE TOP (:limit) reports SET resolved_by = NULL WHERE resolved_by = :userId"));
+        SIMPLE_PHASES.put(Phase.IMAGES, List.of(
+                "DELETE TOP (:limit) FROM image_attachments WHERE user_id = :userId"));
+        SIMPLE_PHASES.put(Phase.FOLLOWS, List.of(
+                "DELETE TOP (:limit) FROM user_following WHERE follower_id = :userId",
+                "DELETE TOP (:limit) FROM user_following WHERE following_id = :userId"));
+        SIMPLE_PHASES.put(Phase.CHATBOT, List.of(
+                "DELETE TOP (:limit) FROM chatbot_messages WHERE conversation_id IN " +
+                        "(SELECT id FROM chatbot_conversations WHERE user_id = :userId)",
+                "DELETE TOP (:limit) FROM chatbot_conversations WHERE user_id = :userId"));
+        SIMPLE_PHASES.put(Phase.USER, List.of(
+                "DELETE FROM password_reset_tokens WHERE email = (SELECT email FROM users WHERE id = :userId)",
+                "DELETE FROM users WHERE id = :userId"));
+    }
+
+    @Autowired
+    private UserPurgeJobRepository jobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TagPopularityRanking tagPopularityRanking;
+
+    @Value("${purge.chunk-size:500}")
+    private int chunkSize;
+
+    // Questions carry answers, images and votes with them, so their chunks are smaller
+    @Value("${purge.question-chunk-size:50}")
+    private int questionChunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Tạo job xóa (hoặc trả về job đang chạy của user đó) và vô hiệu hóa tài khoản ngay
+     */
+    @Transactional
+    public UserPurgeJob schedule(Long userId) {
+        Optional<UserPurgeJob> existing = jobRepository.findFirstByUserIdAndStatusInOrderByIdDesc(userId, UNFINISHED);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        user.setIsActive(false);
+        userRepository.save(user);
+
+        // A FAILED job is retried by scheduling again: every phase is idempotent
+        UserPurgeJob job = new UserPurgeJob();
+        job.setUserId(userId);
+        job.setUsername(user.getUsername());
+        job.setStatus(PENDING);
+        job.setPhase(Phase.NOTIFICATIONS.name());
+        job.setDeletedRows(0L);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(LocalDateTime.now());
+        return jobRepository.save(job);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserPurgeJob> findJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Chạy các job chưa xong, cũ nhất trước (job RUNNING sau khi restart được chạy tiếp)
+     */
+    @Scheduled(fixedDelayString = "${purge.poll-interval-ms:5000}")
+    public void runPendingJobs() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Optional<UserPurgeJob> next;
+            while ((next = jobRepository.findFirstByStatusInOrderByIdAsc(UNFINISHED)).isPresent()) {
+                run(next.get());
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void run(UserPurgeJob job) {
+        Long jobId = job.getId();
+        Long userId = job.getUserId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        updateJob("UPDATE user_purge_jobs SET status = :status, updated_at = :now WHERE id = :jobId",
+                params(jobId).addValue("status", RUNNING));
+        logger.info("User purge job {} started for user {} at phase {}", jobId, userId, job.getPhase());
+
+        try {
+            Phase phase = Phase.valueOf(job.getPhase());
+            while (phase != Phase.DONE) {
+                Phase current = phase;
+                int touched;
+                do {
+                    touched = tx.execute(status -> {
+                        int rows = runChunk(current, userId);
+                        updateJob("UPDATE user_purge_jobs SET deleted_rows = deleted_rows + :rows, updated_at = :now " +
+                                  "WHERE id = :jobId", params(jobId).addValue("rows", rows));
+                        return rows;
+                    });
+                } while (touched > 0);
+
+                phase = Phase.values()[current.ordinal() + 1];
+                updateJob("UPDATE user_purge_jobs SET phase = :phase, updated_at = :now WHERE id = :jobId",
+                        params(jobId).addValue("phase", phase.name()));
+            }
+            updateJob("UPDATE user_purge_jobs SET status = :status, finished_at = :now, updated_at = :now WHERE id = :jobId",
+                    params(jobId).addValue("status", DONE));
+            logger.info("User purge job {} finished for user {}", jobId, userId);
+        } catch (RuntimeException e) {
+            logger.error("User purge job {} failed for user {}", jobId, userId, e);
+            updateJob("UPDATE user_purge_jobs SET status = :status, last_error = :error, updated_at = :now WHERE id = :jobId",
+                    params(jobId).addValue("status", FAILED).addValue("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * Xử lý 1 lô của bước phase, trả về số dòng bị xóa/cập nhật (0 = bước đã xong)
+     */
+    private int runChunk(Phase phase, Long userId) {
+        switch (phase) {
+            case MESSAGES:
+                return purgeMessageChunk(userId);
+            case VOTES:
+                return purgeVoteChunk(userId);
+            case QUESTIONS:
+                return purgeQuestionChunk(userId);
+            case ANSWERS:
+                return purgeAnswerChunk(userId);
+            default:
+                int touched = 0;
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("limit", chunkSize)
+                        .addValue("userId", userId);
+                for (String sql : SIMPLE_PHASES.get(phase)) {
+                    touched += jdbc.update(sql, params);
+                }
+                return touched;
+        }
+    }
+
+    private int purgeMessageChunk(Long userId) {
+        List<Long> ids = jdbc.queryForList(
+                "SELECT TOP (:limit) id FROM messages WHERE sender_id = :userId OR receiver_id = :userId",
+                new MapSqlParameterSource().addValue("limit", chunkSize).addValue("userId", userId), Long.class);
+        if (ids.isEmpty()) {
+            // Hết tin nhắn: xóa các dòng hội thoại (read model của hộp thư)
+            return jdbc.update("DELETE TOP (:limit) FROM conversations WHERE user_low_id = :userId OR user_high_id = :userId",
+                    new MapSqlParameterSource().addValue("limit", chunkSize).addValue("userId", userId));
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        jdbc.update("UPDATE messages SET reply_to_id = NULL WHERE reply_to_id IN (:ids)", params);
+        int touched = jdbc.update("DELETE FROM attachments WHERE message_id IN (:ids)", params);
+        return touched + jdbc.update("DELETE FROM messages WHERE id IN (:ids)", params);
+    }
+
+    /**
+     * Vote của user trên bài người khác: trừ votes rồi xóa dòng trong sổ vote
+     */
+    private int purgeVoteChunk(Long userId) {
+        MapSqlParameterSource select = new MapSqlParameterSource().addValue("limit", chunkSize).addValue("userId", userId);
+        int touched = 0;
+
+        List<Long> questionIds = jdbc.queryForList(
+                "SELECT TOP (:limit) question_id FROM user_votes_questions WHERE user_id = :userId", select, Long.class);
+        if (!questionIds.isEmpty()) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", questionIds).addValue("userId", userId);
+            jdbc.update("UPDATE questions SET votes = votes - 1 WHERE id IN (:ids)", params);
+            touched += jdbc.update("DELETE FROM user_votes_questions WHERE user_id = :userId AND question_id IN (:ids)", params);
+        }
+
+        List<Long> answerIds = jdbc.queryForList(
+                "SELECT TOP (:limit) answer_id FROM user_votes_answers WHERE user_id = :userId", select, Long.class);
+        if (!answerIds.isEmpty()) {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", answerIds).addValue("userId", userId);
+            jdbc.update("UPDATE answers SET votes = votes - 1 WHERE id IN (:ids)", params);
+            touched += jdbc.update("DELETE FROM user_votes_answers WHERE user_id = :userId AND answer_id IN (:ids)", params);
+        }
+        return touched;
+    }
+
+    /**
+     * Câu hỏi của user cùng toàn bộ câu trả lời, ảnh, vote, tag; số câu hỏi của tag trừ gộp 1 lần / lô
+     */
+    private int purgeQuestionChunk(Long userId) {
+        List<Long> ids = jdbc.queryForList(
+                "SELECT TOP (:limit) id FROM questions WHERE author_id = :userId ORDER BY id",
+                new MapSqlParameterSource().addValue("limit", questionChunkSize).addValue("userId", userId), Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        String answersOfChunk = "(SELECT id FROM answers WHERE question_id IN (:ids))";
+
+        jdbc.update("UPDATE t SET t.question_count = CASE WHEN t.question_count > qt.cnt " +
+                    "THEN t.question_count - qt.cnt ELSE 0 END " +
+                    "FROM tags t JOIN (SELECT tag_id, COUNT(*) AS cnt FROM question_tags " +
+                    "WHERE question_id IN (:ids) GROUP BY tag_id) qt ON qt.tag_id = t.id", params);
+        tagPopularityRanking.invalidate();
+        int touched = jdbc.update("DELETE FROM question_tags WHERE question_id IN (:ids)", params);
+        touched += jdbc.update("DELETE FROM user_votes_questions WHERE question_id IN (:ids)", params);
+        jdbc.update("UPDATE questions SET accepted_answer_id = NULL WHERE id IN (:ids)", params);
+        touched += jdbc.update("DELETE FROM user_votes_answers WHERE answer_id IN " + answersOfChunk, params);
+        touched += jdbc.update("DELETE FROM image_attachments WHERE question_id IN (:ids) " +
+                               "OR answer_id IN " + answersOfChunk, params);
+        touched += jdbc.update("DELETE FROM answers WHERE question_id IN (:ids)", params);
+        touched += jdbc.update("DELETE FROM questions WHERE id IN (:ids)", params);
+
+        // Delivered after this chunk commits (search index, feed cache)
+        ids.forEach(id -> eventPublisher.publishEvent(QuestionChangedEvent.deleted(id)));
+        return touched;
+    }
+
+    /**
+     * Câu trả lời của user trên câu hỏi người khác; answer_count trừ gộp theo câu hỏi
+     */
+    private int purgeAnswerChunk(Long userId) {
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT TOP (:limit) id, question_id FROM answers WHERE author_id = :userId",
+                new MapSqlParameterSource().addValue("limit", chunkSize).addValue("userId", userId));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream().map(row -> ((Number) row.get("id")).longValue())
+                .collect(Collectors.toList());
+        Set<Long> questionIds = new LinkedHashSet<>();
+        rows.forEach(row -> questionIds.add(((Number) row.get("question_id")).longValue()));
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+
+        jdbc.update("UPDATE questions SET accepted_answer_id = NULL WHERE accepted_answer_id IN (:ids)", params);
+        jdbc.update("UPDATE q SET q.answer_count = CASE WHEN q.answer_count > a.cnt " +
+                    "THEN q.answer_count - a.cnt ELSE 0 END " +
+                    "FROM questions q JOIN (SELECT question_id, COUNT(*) AS cnt FROM answers " +
+                    "WHERE id IN (:ids) GROUP BY question_id) a ON a.question_id = q.id", params);
+        int touched = jdbc.update("DELETE FROM user_votes_answers WHERE answer_id IN (:ids)", params);
+        touched += jdbc.update("DELETE FROM image_attachments WHERE answer_id IN (:ids)", params);
+        touched += jdbc.update("DELETE FROM answers WHERE id IN (:ids)", params);
+
+        questionIds.forEach(id -> eventPublisher.publishEvent(QuestionChangedEvent.countsChanged(id)));
+        return touched;
+    }
+
+    private MapSqlParameterSource params(Long jobId) {
+        return new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void updateJob(String sql, MapSqlParameterSource params) {
+        jdbc.update(sql, params);
+    }
+}
@@ -0,0 +1,119 @@
+package com.edumoet.service.common;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.edumoet.repository.AnswerRepository;
+import com.edumoet.repository.QuestionRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Vote Service - Sổ ghi vote (user_votes_questions / user_votes_answers)
+ *
+ * Mỗi thao tác là 1 câu INSERT có điều kiện hoặc DELETE theo khóa (user_id, target_id)
+ * cộng với "votes = votes ± 1" bằng SQL, nên:
+ * - Không cần nạp danh sách vote của user vào bộ nhớ
+ * - Số vote luôn khớp với số dòng trong sổ ghi, kể cả khi click đồng thời
+ */
+@Service
+@Transactional
+public class VoteService {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ================== QUESTIONS ==================
+
+    /**
+     * Toggle upvote câu hỏi, trả về số vote mới
+     */
+    public int toggleQuestionVote(Long questionId, Long userId) {
+        if (questionRepository.deleteVote(userId, questionId) > 0) {
+            questionRepository.adjustVotes(questionId, -1);
+        } else if (questionRepository.insertVote(userId, questionId) > 0) {
+            questionRepository.adjustVotes(questionId, 1);
+        }
+        eventPublisher.publishEvent(QuestionChangedEvent.countsChanged(questionId));
+        return currentQuestionVotes(questionId);
+    }
+
+    /**
+     * Bỏ upvote câu hỏi (chỉ khi đã upvote), trả về số vote mới
+     */
+    public int removeQuestionVote(Long questionId, Long userId) {
+        if (questionRepository.deleteVote(userId, questionId) == 0) {
+            throw new RuntimeException("Bạn phải upvote trước khi downvote");
+        }
+        questionRepository.adjustVotes(questionId, -1);
+        eventPublisher.publishEvent(QuestionChangedEvent.countsChanged(questionId));
+        return currentQuestionVotes(questionId);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasVotedQuestion(Long questionId, Long userId) {
+        return questionRepository.countVote(userId, questionId) > 0;
+    }
+
+    private int currentQuestionVotes(Long questionId) {
+        Integer votes = questionRepository.findVotesById(questionId);
+        return votes != null ? votes : 0;
+    }
+
+    // ================== ANSWERS ==================
+
+    /**
+     * Toggle upvote câu trả lời, trả về số vote mới
+     */
+    public int toggleAnswerVote(Long answerId, Long userId) {
+        if (answerRepository.deleteVote(userId, answerId) > 0) {
+            answerRepository.adjustVotes(answerId, -1);
+        } else if (answerRepository.insertVote(userId, answerId) > 0) {
+            answerRepository.adjustVotes(answerId, 1);
+        }
+        return currentAnswerVotes(answerId);
+    }
+
+    /**
+     * Bỏ upvote câu trả lời (chỉ khi đã upvote), trả về số vote mới
+     */
+    public int removeAnswerVote(Long answerId, Long userId) {
+        if (answerRepository.deleteVote(userId, answerId) == 0) {
+            throw new RuntimeException("Bạn phải upvote trước khi downvote");
+        }
+        answerRepository.adjustVotes(answerId, -1);
+        return currentAnswerVotes(answerId);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasVotedAnswer(Long answerId, Long userId) {
+        return answerRepository.countVote(userId, answerId) > 0;
+    }
+
+    /**
+     * Trong số answerIds, những câu trả lời user đã upvote (1 query, không nạp lịch sử vote)
+     */
+    @Transactional(readOnly = true)
+    public Set<Long> findVotedAnswerIds(Long userId, Collection<Long> answerIds) {
+        if (userId == null || answerIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(answerRepository.findVotedAnswerIds(userId, answerIds));
+    }
+
+    private int currentAnswerVotes(Long answerId) {
+        Integer votes = answerRepository.findVotesById(answerId);
+        return votes != null ? votes : 0;
+    }
+}
@@ -1,7 +1,6 @@
 package com.edumoet.service.common;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import com.edumoet.entity.Notification;
@@ -15,11 +14,14 @@ import java.time.LocalDateTime;
 public class WebSocketService {
     
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificationDelivery notificationDelivery;
     
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
     public void notifyUser(User user, String title, String message, String type) {
         Notification notification = new Notification();
         notification.setUser(user);
@@ -29,12 +31,10 @@ public class WebSocketService {
         notification.setCreatedAt(LocalDateTime.now());
         
         notificationRepository.save(notification);
+        unreadCounterService.notificationsChanged(user.getUsername(), 1);
         
-        messagingTemplate.convertAndSendToUser(
-            user.getUsername(),
-            "/queue/notifications",
-            notification
-        );
+        // Frame gọn, gom theo user trong window ngắn (không gửi entity kèm User)
+        notificationDelivery.enqueue(user.getUsername(), type, title, message, null);
     }
 
     public void notifyNewComment(User author, Question question, String commentText) {
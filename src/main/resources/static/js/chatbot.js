@@ -7,8 +7,6 @@ class ChatbotWidget {
     constructor() {
         this.isOpen = false;
         this.sessionId = this.getOrCreateSessionId();
-        this.stompClient = null;
-        this.isConnected = false;
         this.messageQueue = [];
         this.isTyping = false;
         
@@ -168,30 +166,18 @@ class ChatbotWidget {
      * Connect to WebSocket
      */
     connectWebSocket() {
-        const socket = new SockJS('/ws');
-        this.stompClient = Stomp.over(socket);
-        
-        // Disable console logs
-        this.stompClient.debug = null;
-        
-        this.stompClient.connect({}, (frame) => {
+        // Shared tab connection (socket.js); runs again after each reconnect
+        AppSocket.onConnect((client) => {
             console.log('Chatbot WebSocket connected');
-            this.isConnected = true;
             
             // Subscribe to chatbot responses
-            this.stompClient.subscribe('/topic/chatbot/' + this.sessionId, (message) => {
+            client.subscribe('/topic/chatbot/' + this.sessionId, (message) => {
                 const response = JSON.parse(message.body);
                 this.displayBotMessage(response.content, response.timestamp);
             });
             
             // Process queued messages
             this.processMessageQueue();
-        }, (error) => {
-            console.error('WebSocket connection error:', error);
-            this.isConnected = false;
-            
-            // Retry connection after 3 seconds
-            setTimeout(() => this.connectWebSocket(), 3000);
         });
     }
     
@@ -214,11 +200,10 @@ class ChatbotWidget {
         }
         
         // Send to server
-        if (this.isConnected) {
-            this.stompClient.send('/app/chatbot/send', {}, JSON.stringify({
+        if (AppSocket.send('/app/chatbot/send', {
                 sessionId: this.sessionId,
                 message: message
-            }));
+            })) {
             
             // Show typing indicator
             this.showTypingIndicator();
@@ -1,19 +1,13 @@
-// WebSocket connection handling
-let stompClient = null;
-
+// WebSocket subscriptions on the shared connection (socket.js)
 function connectWebSocket() {
-    const socket = new SockJS('/ws');
-    stompClient = Stomp.over(socket);
-    
-    stompClient.connect({}, function(frame) {
+    AppSocket.onConnect(function(client) {
         // Subscribe to personal notifications
-        const username = document.getElementById('currentUsername').value;
-        stompClient.subscribe('/user/' + username + '/queue/notifications', onNotification);
+        client.subscribe('/user/queue/notifications', onNotification);
         
         // Subscribe to group notifications if in a group page
         const groupId = document.getElementById('groupId')?.value;
         if (groupId) {
-            stompClient.subscribe('/topic/group.' + groupId, onGroupUpdate);
+            client.subscribe('/topic/group.' + groupId, onGroupUpdate);
         }
     });
 }
@@ -73,7 +67,7 @@ function inviteToGroup(userId, groupId) {
 // Notification handling
 function onNotification(message) {
     const notification = JSON.parse(message.body);
-    showToast(notification.title, notification.message);
+    showToast(notification.title || 'Thông báo', notification.message);
     updateNotificationBadge();
 }
 
@@ -0,0 +1,43 @@
+// Shared STOMP connection: one SockJS session per tab, reused by the navbar badges,
+// notifications, the chatbot widget and the chat page (each extra socket is another
+// broker session and would be counted again by presence tracking)
+const AppSocket = (function () {
+    let client = null;
+    let connected = false;
+    const listeners = [];
+
+    function connect() {
+        client = Stomp.over(new SockJS('/ws'));
+        client.debug = null;
+        client.connect({}, function () {
+            connected = true;
+            listeners.forEach(listener => listener(client));
+        }, function () {
+            connected = false;
+            // Reconnect; listeners run again and re-subscribe
+            setTimeout(connect, 5000);
+        });
+    }
+
+    return {
+        // listener(client) runs on every (re)connect: subscribe there
+        onConnect(listener) {
+            listeners.push(listener);
+            if (connected) {
+                listener(client);
+            } else if (!client) {
+                connect();
+            }
+        },
+
+        send(destination, body) {
+            if (!connected) return false;
+            client.send(destination, {}, JSON.stringify(body));
+            return true;
+        },
+
+        isConnected() {
+            return connected;
+        }
+    };
+})();